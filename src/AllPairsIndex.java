@@ -0,0 +1,183 @@
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * This AllPairsIndex class stores the cost of the shortest path between every
+ * pair of nodes in a graph, along with the last step (the predecessor of the
+ * end) of each of those paths.  With it, a shortest path cost is one array
+ * lookup, and a shortest path is found by following predecessors back from
+ * its end without any searching.  Each row of the tables is the shortest
+ * path tree of one start node, so rows can be repaired like any other tree
+ * when an edge weight changes.
+ *
+ * The tables take (8 + 2) * n * n bytes for graphs of up to 32767 nodes, and
+ * (8 + 4) * n * n bytes beyond that, so build() refuses to create an index
+ * that would not fit within a memory budget.  Graphs that are too large keep
+ * answering queries with searches.
+ */
+public class AllPairsIndex {
+
+  // memory budget used when none is specified: enough for about 2500 nodes
+  public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+  private final int nodeCount;
+  // cost from node s to node t is at dist[s * nodeCount + t]
+  private final double[] dist;
+  // node before t on the path from s to t, or -1 when t is s or there is no
+  // such path; only one of these arrays is used, depending on the number of
+  // nodes
+  private final short[] shortPred;
+  private final int[] intPred;
+
+  private AllPairsIndex(int nodeCount, double[] dist, short[] shortPred, int[] intPred) {
+    this.nodeCount = nodeCount;
+    this.dist = dist;
+    this.shortPred = shortPred;
+    this.intPred = intPred;
+  }
+
+  /**
+   * Returns the number of bytes that the tables for a graph with nodeCount
+   * nodes would take.
+   *
+   * @param nodeCount the number of nodes in the graph
+   * @return the size of the distance and predecessor tables in bytes
+   */
+  public static long requiredBytes(int nodeCount) {
+    long cells = (long) nodeCount * nodeCount;
+    return cells * (Double.BYTES + (nodeCount <= Short.MAX_VALUE ? Short.BYTES : Integer.BYTES));
+  }
+
+  /**
+   * Builds the tables for graph by running one full Dijkstra search from
+   * every node.  Those searches run in parallel on the common ForkJoinPool,
+   * each in the SearchSpace of the thread that runs it.
+   *
+   * @param graph        the graph to index
+   * @param memoryBudget the most bytes the tables may take
+   * @return the tables, or null if they would not fit within memoryBudget
+   */
+  public static AllPairsIndex build(CompactGraph<?> graph, long memoryBudget) {
+    int n = graph.getNodeCount();
+    if (requiredBytes(n) > memoryBudget || (long) n * n > Integer.MAX_VALUE)
+      return null;
+    boolean small = n <= Short.MAX_VALUE;
+    AllPairsIndex index = new AllPairsIndex(n, new double[n * n],
+            small ? new short[n * n] : null, small ? null : new int[n * n]);
+    IntStream.range(0, n).parallel().forEach(source -> index.fillRow(graph, source));
+    return index;
+  }
+
+  // copies the distances and predecessors from one search into the row for
+  // source
+  private void fillRow(CompactGraph<?> graph, int source) {
+    SearchSpace space = graph.sweep(source, false);
+    int row = source * nodeCount;
+    for (int t = 0; t < nodeCount; t++) {
+      dist[row + t] = space.dist(t);
+      setPred(row + t, space.isReached(t) ? space.pred(t) : -1);
+    }
+  }
+
+  private int pred(int cell) {
+    return shortPred != null ? shortPred[cell] : intPred[cell];
+  }
+
+  private void setPred(int cell, int pred) {
+    if (shortPred != null)
+      shortPred[cell] = (short) pred;
+    else
+      intPred[cell] = pred;
+  }
+
+  // lets a ShortestPathRepair read and write the row for source
+  private ShortestPathRepair.Tree row(int source) {
+    int row = source * nodeCount;
+    return new ShortestPathRepair.Tree() {
+      public double dist(int node) {
+        return dist[row + node];
+      }
+
+      public int pred(int node) {
+        return AllPairsIndex.this.pred(row + node);
+      }
+
+      public void set(int node, double cost, int from) {
+        dist[row + node] = cost;
+        setPred(row + node, from);
+      }
+    };
+  }
+
+  /**
+   * Returns these tables updated for one changed edge weight, with each row
+   * that the change affects repaired.  The tables are copied (leaving these
+   * ones unchanged for searches still using them) only when at least one
+   * row is affected.
+   *
+   * @param repair the change to repair the tables for
+   * @return tables that are correct for the changed graph
+   */
+  public AllPairsIndex repaired(ShortestPathRepair repair) {
+    AllPairsIndex changed = null;
+    for (int source = 0; source < nodeCount; source++) {
+      if (!repair.affects(row(source), false))
+        continue;
+      if (changed == null)
+        changed = new AllPairsIndex(nodeCount, dist.clone(),
+                shortPred != null ? shortPred.clone() : null,
+                intPred != null ? intPred.clone() : null);
+      repair.repair(changed.row(source), false);
+    }
+    return changed != null ? changed : this;
+  }
+
+  /**
+   * Returns the cost of the shortest path from start to end.
+   *
+   * @param start the id of the start node
+   * @param end   the id of the end node
+   * @return that cost, or infinity when there is no such path
+   */
+  public double cost(int start, int end) {
+    return dist[start * nodeCount + end];
+  }
+
+  /**
+   * Returns the cost of the shortest path from start to every node.
+   *
+   * @param start the id of the start node
+   * @return the costs indexed by node id, infinity for unreachable nodes
+   */
+  public double[] costsFrom(int start) {
+    double[] costs = new double[nodeCount];
+    System.arraycopy(dist, start * nodeCount, costs, 0, nodeCount);
+    return costs;
+  }
+
+  /**
+   * Returns the ids of the nodes along the shortest path from start to end.
+   *
+   * @param start the id of the start node
+   * @param end   the id of the end node
+   * @return the node ids from start to end
+   * @throws NoSuchElementException when there is no path from start to end
+   */
+  public int[] path(int start, int end) {
+    if (cost(start, end) == Double.POSITIVE_INFINITY)
+      throw new NoSuchElementException("No path");
+    int row = start * nodeCount;
+    int length = 0;
+    for (int node = end; node != -1; node = pred(row + node))
+      length++;
+    int[] path = new int[length];
+    for (int node = end, i = length - 1; node != -1; node = pred(row + node))
+      path[i--] = node;
+    return path;
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+}
@@ -1,71 +1,395 @@
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 
 public class Backend extends DijkstraGraph<String, Double> implements BackendInterface {
-  private DijkstraGraph<String, Double> graph;
+  // number of landmarks prepared for A* searches each time a graph is loaded
+  private static final int LANDMARK_COUNT = 8;
 
-  public Backend(DijkstraGraph<String, Double> graph) {
+  // queries read this once and use that graph throughout, so a load that
+  // swaps in a new CompactGraph never mixes two graphs within one query
+  private volatile GraphADT<String, Double> graph;
+  // held by every load and every change to the nodes or edges, so that one
+  // change never undoes another
+  private final Object graphLock = new Object();
+  // most memory the all-pairs table may take, or 0 to search on every query
+  private long allPairsBudget = 0;
+  // most memory the cached shortest path trees may take, or 0 for none
+  private long treeCacheBudget = 0;
+  // recently found routes, which are dropped whenever the graph changes
+  private volatile RouteCache<String> routeCache = new RouteCache<>();
+
+  /**
+   * Constructor that sets the graph this backend loads data into and
+   * computes shortest paths with.  This may be a mutable graph like
+   * DijkstraGraph, or a read-only CompactGraph that is replaced on each load
+   * and each change.
+   *
+   * Queries may be made from many threads at once.  With a CompactGraph,
+   * loadGraphData and the methods that change nodes and edges may also run
+   * while other threads query, since they only replace the graph once the
+   * new one is ready, and they take turns so that no change is lost.  A
+   * mutable graph is cleared and refilled in place, so it must not be
+   * queried while loading.
+   *
+   * A ContractionHierarchy must not be combined with live edge changes
+   * (insertEdge or removeEdge while queries are being answered, such as
+   * opening and closing paths): the first query after any change rebuilds
+   * the whole hierarchy while holding its lock, which takes seconds on
+   * large maps, and every other query waits for it.  Use a CompactGraph,
+   * whose weight changes are repaired in place, for maps that change.
+   *
+   * @param graph object to store the backend's graph data
+   */
+  public Backend(GraphADT<String, Double> graph) {
     this.graph = graph;
   }
 
   /**
    * Loads graph data from a dot file.  If a graph was previously loaded, this
    * method should first delete the contents (nodes and edges) of the existing
-   * graph before loading a new one.
+   * graph before loading a new one.  The whole file is parsed before the
+   * existing graph is touched, so a file with errors leaves it unchanged.
    *
-   * @param filename the path to a dot file to read graph data from
-   * @throws IOException if there was any problem reading from this file
+   * The file may also be a snapshot written by saveGraphSnapshot, which is
+   * recognized by its first bytes.  When this backend's graph is a
+   * CompactGraph, a snapshot is used as the new graph without building
+   * anything.
+   *
+   * @param filename the path to a dot file or snapshot to read graph data from
+   * @throws IOException if there was any problem reading from this file, or a
+   *                     DotParseException with the line and column of the
+   *                     problem when the file is not a valid dot graph
    */
   public void loadGraphData(String filename) throws IOException {
+    if (filename == null) {
+      throw new IOException("Filename cannot be null");
+    }
+    Path file = Paths.get(filename);
+    if (GraphSnapshot.isSnapshot(file)) {
+      loadSnapshot(file);
+      return;
+    }
+    DotParser parsed = DotParser.parse(file);
 
-    try {
-
-      if (filename == null) {
-        throw new IOException("Filename cannot be null");
-      }
-
-      List<String> nodes = graph.getAllNodes();
-      // removes the nodes if there are any
-      for (String node : nodes) {
-        graph.removeNode(node);
-      }
-
-      File campus = new File(filename);
-      Scanner scan = new Scanner(campus);
-      while (scan.hasNextLine()) {
-        String line = scan.nextLine();
-
-        if (line.contains("->") && line.contains("[seconds=")) {
-          String[] parts = line.split("->");
-          String source = parts[0].trim().replace("\"", "");
-          String[] destinationPlace = parts[1].split("\\[seconds=");
-          // destination location
-          String destination = destinationPlace[0].trim().replace("\"", "");
-          // time taken to get to destination
-          Double seconds = Double.parseDouble(destinationPlace[1].replace("];",
-                  ""));
-
-          // insert the source if it is not in the graph
-          if (!containsNode(source)) {
-            this.graph.insertNode(source);
-          }
-          // insert the destination if it is not in the graph
-          if (!containsNode(destination)) {
-            this.graph.insertNode(destination);
-          }
-          // insert the edge
-          this.graph.insertEdge(source, destination, seconds);
-        }
+    // a read-only graph cannot be cleared or filled in, so the file is
+    // loaded into a new mutable graph that is frozen once it is complete
+    if (graph instanceof CompactGraph) {
+      DijkstraGraph<String, Double> target = new DijkstraGraph<>();
+      fill(target, parsed);
+      CompactGraph<String> loaded = CompactGraph.of(target);
+      prepareReplacement(loaded);
+      publish(loaded);
+      return;
+    }
+    synchronized (graphLock) {
+      clearGraph();
+      fill(graph, parsed);
+      prepareSearches(graph);
+      routeCache.invalidate();
+    }
+  }
+
+  // inserts the nodes, in the order they first appear in the file, and then
+  // the edges of a parsed dot file into target
+  private static void fill(GraphADT<String, Double> target, DotParser parsed) {
+    List<String> names = parsed.getNames();
+    for (String name : names) {
+      target.insertNode(name);
+    }
+    for (int i = 0; i < parsed.getEdgeCount(); i++) {
+      target.insertEdge(names.get(parsed.getEdgeSource(i)), names.get(parsed.getEdgeTarget(i)),
+              parsed.getEdgeWeight(i));
+    }
+  }
+
+  // readies a CompactGraph that is about to replace the current one, which
+  // keeps searching with the current one's mode
+  private void prepareReplacement(CompactGraph<String> loaded) {
+    loaded.setSearchMode(((CompactGraph<String>) graph).getSearchMode());
+    prepareSearches(loaded);
+  }
+
+  // replaces the graph with a new CompactGraph that is ready to be searched
+  private void publish(CompactGraph<String> loaded) {
+    synchronized (graphLock) {
+      graph = loaded;
+      routeCache.invalidate();
+    }
+  }
+
+  // loads a snapshot file, copying it into the graph when that is mutable
+  private void loadSnapshot(Path file) throws IOException {
+    CompactGraph<String> loaded = GraphSnapshot.read(file);
+    if (graph instanceof CompactGraph) {
+      prepareReplacement(loaded);
+      publish(loaded);
+      return;
+    }
+    synchronized (graphLock) {
+      clearGraph();
+      copyInto(loaded, graph);
+      prepareSearches(graph);
+      routeCache.invalidate();
+    }
+  }
+
+  // removes every node (and so every edge) from a mutable graph
+  private void clearGraph() {
+    List<String> nodes = graph.getAllNodes();
+    for (String node : nodes) {
+      graph.removeNode(node);
+    }
+  }
+
+  /**
+   * Saves the loaded graph as a binary snapshot, which loadGraphData can
+   * load much faster than the dot file it came from.
+   *
+   * @param filename where to write the snapshot
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void saveGraphSnapshot(String filename) throws IOException {
+    CompactGraph<String> compact = compactView(graph);
+    if (compact == null) {
+      throw new IOException("This kind of graph cannot be saved as a snapshot");
+    }
+    GraphSnapshot.write(compact, Paths.get(filename));
+  }
+
+  /**
+   * Replaces the route cache with one that has the provided limits.
+   *
+   * @param maxSize         the most routes to keep, or 0 to turn caching off
+   * @param timeToLiveNanos how long each route is kept, in nanoseconds
+   */
+  public void setRouteCacheLimits(int maxSize, long timeToLiveNanos) {
+    routeCache = new RouteCache<>(maxSize, timeToLiveNanos);
+  }
+
+  /**
+   * Returns the cache of recently found routes, for its statistics.
+   *
+   * @return the route cache
+   */
+  public RouteCache<String> getRouteCache() {
+    return routeCache;
+  }
+
+  /**
+   * Inserts a node into the loaded graph, and drops all cached routes.  A
+   * read-only CompactGraph is replaced by a copy with the new node (see
+   * rebuild).
+   *
+   * @param data the data item stored in the new node
+   * @return true if the node was inserted, false if it was already there
+   */
+  @Override
+  public boolean insertNode(String data) {
+    synchronized (graphLock) {
+      GraphADT<String, Double> current = graph;
+      boolean changed;
+      if (current instanceof CompactGraph) {
+        changed = !current.containsNode(data) && rebuild(copy -> copy.insertNode(data));
+      } else {
+        changed = current.insertNode(data);
+      }
+      if (changed) {
+        routeCache.invalidate();
+      }
+      return changed;
+    }
+  }
+
+  /**
+   * Removes a node from the loaded graph, and drops all cached routes.  A
+   * read-only CompactGraph is replaced by a copy without the node (see
+   * rebuild).
+   *
+   * @param data the data item stored in the node to remove
+   * @return true if the node was removed, false if it was not there
+   */
+  @Override
+  public boolean removeNode(String data) {
+    synchronized (graphLock) {
+      GraphADT<String, Double> current = graph;
+      boolean changed;
+      if (current instanceof CompactGraph) {
+        changed = current.containsNode(data) && rebuild(copy -> copy.removeNode(data));
+      } else {
+        changed = current.removeNode(data);
+      }
+      if (changed) {
+        routeCache.invalidate();
+      }
+      return changed;
+    }
+  }
+
+  /**
+   * Inserts an edge into the loaded graph (or changes its weight), and drops
+   * all cached routes.  When the weight of an edge of a read-only
+   * CompactGraph changes, the graph is replaced by a copy with the new
+   * weight, whose precomputed tables are repaired for the change.  A new
+   * edge is added to a copy of it instead (see rebuild).  Changes from
+   * different threads (and loads) take turns, so each copy is made from the
+   * latest graph and none of them is lost.
+   * A ContractionHierarchy is preprocessed again from scratch by the next
+   * query instead, so it should not be changed while serving queries (see
+   * the constructor).
+   *
+   * @param pred   the data item in the node that the edge leaves
+   * @param succ   the data item in the node that the edge enters
+   * @param weight the walking time along the edge in seconds
+   * @return true if the edge was inserted or changed, false if either node
+   *         is not in the graph
+   */
+  @Override
+  public boolean insertEdge(String pred, String succ, Double weight) {
+    synchronized (graphLock) {
+      GraphADT<String, Double> current = graph;
+      boolean changed;
+      if (current instanceof CompactGraph && current.containsEdge(pred, succ)) {
+        graph = ((CompactGraph<String>) current).withEdgeWeight(pred, succ, weight);
+        changed = true;
+      } else if (current instanceof CompactGraph) {
+        changed = current.containsNode(pred) && current.containsNode(succ)
+                && rebuild(copy -> copy.insertEdge(pred, succ, weight));
+      } else {
+        changed = current.insertEdge(pred, succ, weight);
+      }
+      if (changed) {
+        routeCache.invalidate();
       }
+      return changed;
+    }
+  }
+
+  /**
+   * Removes an edge from the loaded graph, and drops all cached routes.  A
+   * read-only CompactGraph is replaced by a copy without the edge (see
+   * rebuild).
+   *
+   * @param pred the data item in the node that the edge leaves
+   * @param succ the data item in the node that the edge enters
+   * @return true if the edge was removed, false if it was not there
+   */
+  @Override
+  public boolean removeEdge(String pred, String succ) {
+    synchronized (graphLock) {
+      GraphADT<String, Double> current = graph;
+      boolean changed;
+      if (current instanceof CompactGraph) {
+        changed = current.containsEdge(pred, succ) && rebuild(copy -> copy.removeEdge(pred, succ));
+      } else {
+        changed = current.removeEdge(pred, succ);
+      }
+      if (changed) {
+        routeCache.invalidate();
+      }
+      return changed;
+    }
+  }
+
+  /**
+   * Adds or removes nodes or edges of a read-only CompactGraph, which cannot
+   * be changed in place: the change is made to a mutable copy of it, which
+   * is frozen, prepared like a newly loaded graph, and then replaces it.
+   * This takes about as long as loading the graph again, so it suits
+   * occasional changes to the map; closing and opening paths is much
+   * cheaper done by changing edge weights.  Must be called holding
+   * graphLock.
+   *
+   * @param change makes the change to the copy, and returns whether it did
+   * @return the result of change, which leaves the graph as it was if false
+   */
+  private boolean rebuild(Predicate<DijkstraGraph<String, Double>> change) {
+    DijkstraGraph<String, Double> copy = new DijkstraGraph<>();
+    copyInto((CompactGraph<String>) graph, copy);
+    if (!change.test(copy)) {
+      return false;
+    }
+    CompactGraph<String> rebuilt = CompactGraph.of(copy);
+    prepareReplacement(rebuilt);
+    graph = rebuilt;
+    return true;
+  }
+
+  // inserts every node and edge of a CompactGraph into an empty mutable graph
+  private static void copyInto(CompactGraph<String> from, GraphADT<String, Double> to) {
+    for (String name : from.names) {
+      to.insertNode(name);
+    }
+    for (int node = 0; node < from.getNodeCount(); node++) {
+      for (int i = from.offsets[node]; i < from.offsets[node + 1]; i++) {
+        to.insertEdge(from.nodeAt(node), from.nodeAt(from.targets[i]), from.weights[i]);
+      }
+    }
+  }
 
+  /**
+   * Lets each load precompute a table of the shortest paths between all pairs
+   * of locations, which answers queries without searching.  The table is
+   * only built for graphs small enough that it fits within memoryBudget.
+   * This takes effect on the next call to loadGraphData.
+   *
+   * @param memoryBudget the most bytes the table may take, or 0 for no table
+   */
+  public void setAllPairsMemoryBudget(long memoryBudget) {
+    this.allPairsBudget = memoryBudget;
+  }
+
+  /**
+   * Lets each load keep the shortest path trees of the locations that routes
+   * start from, so that later routes from the same location are read from a
+   * tree instead of searched for.  This takes effect on the next call to
+   * loadGraphData, and is not used when the all-pairs table is built.
+   *
+   * @param memoryBudget the most bytes the trees may take, or 0 for no trees
+   */
+  public void setTreeCacheMemoryBudget(long memoryBudget) {
+    this.treeCacheBudget = memoryBudget;
+  }
 
-    } catch (IOException e) {
-      System.out.println("File cannot be null");
+  /**
+   * Builds the all-pairs table and the tree cache of a loaded graph, when
+   * they are enabled and fit.  A graph still on the default DIJKSTRA mode is
+   * switched to ALT, while any other mode its owner chose is kept.  The
+   * landmark tables for A* searches are only built when the graph searches
+   * with ALT and there is no all-pairs table, which would answer every query
+   * without searching.  A ContractionHierarchy is preprocessed instead.
+   *
+   * @param graph the graph that was just loaded
+   */
+  private void prepareSearches(GraphADT<String, Double> graph) {
+    if (graph instanceof DijkstraGraph) {
+      DijkstraGraph<String, Double> dijkstraGraph = (DijkstraGraph<String, Double>) graph;
+      boolean tabled = dijkstraGraph.prepareAllPairs(allPairsBudget);
+      if (dijkstraGraph.getSearchMode() == SearchMode.DIJKSTRA) {
+        dijkstraGraph.setSearchMode(SearchMode.ALT);
+      }
+      // 0 also stops keeping the landmarks of an earlier load
+      boolean landmarks = !tabled && dijkstraGraph.getSearchMode() == SearchMode.ALT;
+      dijkstraGraph.prepareLandmarks(landmarks ? LANDMARK_COUNT : 0);
+      dijkstraGraph.prepareTreeCache(treeCacheBudget);
+    } else if (graph instanceof CompactGraph) {
+      CompactGraph<String> compactGraph = (CompactGraph<String>) graph;
+      boolean tabled = compactGraph.prepareAllPairs(allPairsBudget);
+      if (compactGraph.getSearchMode() == SearchMode.DIJKSTRA) {
+        compactGraph.setSearchMode(SearchMode.ALT);
+      }
+      if (!tabled && compactGraph.getSearchMode() == SearchMode.ALT) {
+        compactGraph.prepareLandmarks(LANDMARK_COUNT);
+      }
+      compactGraph.prepareTreeCache(treeCacheBudget);
+    } else if (graph instanceof ContractionHierarchy) {
+      // contracted once here, so the first query is not held up by it
+      ((ContractionHierarchy<String, Double>) graph).prepare();
     }
   }
 
@@ -78,6 +402,40 @@ public class Backend extends DijkstraGraph<String, Double> implements BackendInt
     return graph.getAllNodes();
   }
 
+  @Override
+  public boolean containsLocation(String location) {
+    return location != null && graph.containsNode(location);
+  }
+
+  /**
+   * Return the shortest route from startLocation to endLocation: the
+   * sequence of locations along it, the walking time in seconds of each leg
+   * between two locations, and the total walking time, all computed with a
+   * single search.  Routes are cached, so popular routes are only searched
+   * for once per version of the graph.
+   *
+   * @param startLocation the start location of the path
+   * @param endLocation   the end location of the path
+   * @return the route along the shortest path from startLocation to
+   * endLocation
+   * @throws NoSuchElementException if either location does not exist, or if
+   *                                there is no path between them
+   */
+  @Override
+  public Route<String> findShortestRoute(String startLocation, String endLocation) {
+    GraphADT<String, Double> current = graph;
+    // Validate input and check if nodes exist in the graph
+    if (!current.containsNode(startLocation) || !current.containsNode(endLocation)) {
+      throw new NoSuchElementException("Start or end node does not exist in the graph.");
+    }
+    // a DijkstraGraph's snapshot is replaced whenever the graph is modified,
+    // even directly instead of through this backend, so it identifies the
+    // version of the graph that a cached route belongs to
+    CompactGraph<String> compact = compactView(current);
+    return routeCache.get(startLocation, endLocation, compact != null ? compact : current,
+            current::shortestRoute);
+  }
+
   /**
    * Return the sequence of locations along the shortest path from
    * startLocation to endLocation, or an empty list if no such path exists.
@@ -89,20 +447,7 @@ public class Backend extends DijkstraGraph<String, Double> implements BackendInt
    */
   @Override
   public List<String> findLocationsOnShortestPath(String startLocation, String endLocation) {
-    // Validate input and check if nodes exist in the graph
-    if (!graph.containsNode(startLocation) || !graph.containsNode(endLocation)) {
-      throw new NoSuchElementException("Start or end node does not exist in the graph.");
-    }
-
-    // Attempt to find the shortest path using the graph's method
-    List<String> shortestPath = graph.shortestPathData(startLocation, endLocation);
-
-    // If no path exists, return an empty list
-    if (shortestPath == null || shortestPath.isEmpty()) {
-      return new ArrayList<>();
-    }
-
-    return shortestPath;
+    return findShortestRoute(startLocation, endLocation).getLocations();
   }
 
   /**
@@ -118,33 +463,9 @@ public class Backend extends DijkstraGraph<String, Double> implements BackendInt
    */
   @Override
   public List<Double> findTimesOnShortestPath(String startLocation, String endLocation) {
-    // Get the sequence of locations on the shortest path
-    List<String> locationStrings = findLocationsOnShortestPath(startLocation, endLocation);
-
-    // Return an empty list if no path exists
-    if (locationStrings == null || locationStrings.isEmpty()) {
-      return new ArrayList<>();
-    }
-
-    List<Double> locationTimes = new ArrayList<>();
-
-    // Calculate the walking times between consecutive nodes
-    for (int i = 0; i < locationStrings.size() - 1; i++) {
-      String start = locationStrings.get(i);
-      String end = locationStrings.get(i + 1);
-
-      // Use shortestPathCost to get the walking time between two nodes
-      double time;
-      try {
-        time = graph.shortestPathCost(start, end);
-      } catch (NoSuchElementException e) {
-        throw new NoSuchElementException("Unable to calculate time between " + start + " and " + end + ".");
-      }
-
-      locationTimes.add(time);
-    }
-
-    return locationTimes;
+    // each leg's time is the weight of the edge it follows, which the route
+    // already holds, so no further searches are needed
+    return findShortestRoute(startLocation, endLocation).getLegCosts();
   }
 
   /**
@@ -161,15 +482,128 @@ public class Backend extends DijkstraGraph<String, Double> implements BackendInt
    */
   @Override
   public String getClosestDestinationFromAll(List<String> startLocations) throws NoSuchElementException {
-    List<String> locations = graph.getAllNodes();
+    GraphADT<String, Double> current = graph;
+    List<String> locations = current.getAllNodes();
 
     // throw exception if there is no startLocation
     if (locations.isEmpty() || startLocations.isEmpty()) {
       throw new NoSuchElementException("Graph or start locations are empty.");
     }
 
+    CompactGraph<String> compact = compactView(current);
+    if (compact == null) {
+      return closestDestinationByPairs(current, locations, startLocations);
+    }
+    for (String startLocation : startLocations) {
+      if (!compact.containsNode(startLocation)) {
+        throw new NoSuchElementException("startLocation does not exist");
+      }
+    }
+
+    // one search from each start location finds its time to every
+    // destination, and those searches run in parallel
+    List<double[]> times = startLocations.parallelStream()
+            .map(compact::shortestPathCostsFrom)
+            .collect(Collectors.toList());
+    // add up times in the same order as the start locations were listed
+    double[] totalTimes = new double[compact.getNodeCount()];
+    for (double[] startTimes : times) {
+      for (int i = 0; i < totalTimes.length; i++) {
+        totalTimes[i] += startTimes[i];
+      }
+    }
+
     String closestDestination = null;
     double minTotalTime = Double.MAX_VALUE;
+    for (int i = 0; i < totalTimes.length; i++) {
+      // destinations that some start location cannot reach add up to
+      // infinity, so they are never chosen
+      if (totalTimes[i] < minTotalTime) {
+        minTotalTime = totalTimes[i];
+        closestDestination = compact.nodeAt(i);
+      }
+    }
+
+    if (closestDestination == null) {
+      throw new NoSuchElementException("No reachable destination from all start locations.");
+    }
+    return closestDestination;
+  }
+
+  /**
+   * Returns the walking times in seconds from each of the sources to each of
+   * the targets.  Each source runs one search, which stops once every target
+   * is settled, and the sources are searched in parallel.
+   *
+   * @param sources the locations to measure walking times from
+   * @param targets the locations to measure walking times to
+   * @return a matrix whose entry [i][j] is the walking time from
+   *         sources.get(i) to targets.get(j), or infinity when there is no
+   *         path between them
+   * @throws NoSuchElementException if any source or target does not exist
+   */
+  @Override
+  public double[][] computeTravelTimeMatrix(List<String> sources, List<String> targets)
+          throws NoSuchElementException {
+    GraphADT<String, Double> current = graph;
+    CompactGraph<String> compact = compactView(current);
+    if (compact != null) {
+      return compact.shortestPathCostMatrix(sources, targets);
+    }
+
+    // other graphs run one search per pair of locations
+    for (String location : sources) {
+      if (!current.containsNode(location)) {
+        throw new NoSuchElementException("source does not exist: " + location);
+      }
+    }
+    for (String location : targets) {
+      if (!current.containsNode(location)) {
+        throw new NoSuchElementException("target does not exist: " + location);
+      }
+    }
+    double[][] times = new double[sources.size()][targets.size()];
+    for (int i = 0; i < sources.size(); i++) {
+      for (int j = 0; j < targets.size(); j++) {
+        try {
+          times[i][j] = current.shortestPathCost(sources.get(i), targets.get(j));
+        } catch (NoSuchElementException e) {
+          times[i][j] = Double.POSITIVE_INFINITY;
+        }
+      }
+    }
+    return times;
+  }
+
+  /**
+   * Returns the array-based copy of a graph that searches run on.
+   *
+   * @param graph the loaded graph
+   * @return that CompactGraph, or null for graphs that do not have one
+   */
+  private static CompactGraph<String> compactView(GraphADT<String, Double> graph) {
+    if (graph instanceof DijkstraGraph) {
+      return ((DijkstraGraph<String, Double>) graph).snapshot();
+    }
+    if (graph instanceof CompactGraph) {
+      return (CompactGraph<String>) graph;
+    }
+    return null;
+  }
+
+  // finds the closest destination with one search per start and destination
+  // pair, for graphs that cannot report all costs from a start at once
+  private static String closestDestinationByPairs(GraphADT<String, Double> graph,
+                                                  List<String> locations,
+                                                  List<String> startLocations) {
+    String closestDestination = null;
+    double minTotalTime = Double.MAX_VALUE;
+
+    for (String startLocation : startLocations) {
+      if (!graph.containsNode(startLocation)) {
+        throw new NoSuchElementException("startLocation does not exist");
+      }
+    }
 
     for (String destination : locations) {
       double time = 0;
@@ -180,8 +614,9 @@ public class Backend extends DijkstraGraph<String, Double> implements BackendInt
         try {
           time += graph.shortestPathCost(startLocation, destination);
         } catch (NoSuchElementException e) {
+          // skip destinations that this start location cannot reach
           reach = false;
-          throw new NoSuchElementException("startLocation does not exist");
+          break;
         }
       }
       // update closestDestination if another minTotalTime is found
@@ -197,4 +632,3 @@ public class Backend extends DijkstraGraph<String, Double> implements BackendInt
     return closestDestination;
   }
 }
-
@@ -30,6 +30,14 @@ public interface BackendInterface {
    */
   public List<String> getListOfAllLocations();
 
+  /**
+   * Returns whether the graph has a location with the provided name, without
+   * listing every location.
+   * @param location the name to look for
+   * @return true if the graph has that location, false otherwise
+   */
+  public boolean containsLocation(String location);
+
   /**
    * Return the sequence of locations along the shortest path from 
    * startLocation to endLocation, or an empty list if no such path exists.
@@ -52,6 +60,20 @@ public interface BackendInterface {
    */
   public List<Double> findTimesOnShortestPath(String startLocation, String endLocation);
 
+  /**
+   * Return the shortest route from startLocation to endLocation: the
+   * sequence of locations along it, the walking time in seconds of each leg
+   * between two locations, and the total walking time, all computed with a
+   * single search.
+   * @param startLocation the start location of the path
+   * @param endLocation the end location of the path
+   * @return the route along the shortest path from startLocation to
+   *         endLocation
+   * @throws NoSuchElementException if either location does not exist, or if
+   *         there is no path from startLocation to endLocation
+   */
+  public Route<String> findShortestRoute(String startLocation, String endLocation);
+
   /**
    * Returns the location can be reached from all of the specified start 
    * locations in the shortest total time: minimizing the sum of the travel
@@ -65,4 +87,19 @@ public interface BackendInterface {
    */
   public String getClosestDestinationFromAll(List<String> startLocations) throws NoSuchElementException;
 
+  /**
+   * Returns the walking times in seconds from each of the sources to each of
+   * the targets, computed with one search per source rather than one per
+   * pair of locations.
+   * @param sources the locations to measure walking times from
+   * @param targets the locations to measure walking times to
+   * @return a matrix whose entry [i][j] is the walking time from
+   *         sources.get(i) to targets.get(j), or infinity when there is no
+   *         path between them
+   * @throws NoSuchElementException if any source or target does not exist
+   *         within the graph
+   */
+  public double[][] computeTravelTimeMatrix(List<String> sources, List<String> targets)
+          throws NoSuchElementException;
+
 }
\ No newline at end of file
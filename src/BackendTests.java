@@ -3,7 +3,9 @@
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 
 public class BackendTests {
@@ -104,5 +106,158 @@ public class BackendTests {
 
   }
 
+  // compares the closest destination to one found with a search for every
+  // start and destination pair, and checks missing start locations
+  @Test
+  public void testClosestDestinationFromAll() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    Backend backend = new Backend(graph);
+    backend.loadGraphData("campus.dot");
+    CompactGraph<String> compact = graph.snapshot();
+
+    List<String> starts = List.of("Memorial Union", "Union South", "Grainger Hall");
+    String expected = null;
+    double minTotal = Double.MAX_VALUE;
+    for (String destination : compact.getAllNodes()) {
+      double total = 0;
+      try {
+        for (String start : starts)
+          total += compact.shortestPathCost(start, destination, SearchMode.DIJKSTRA);
+      } catch (NoSuchElementException e) {
+        continue; // destinations that some start cannot reach are skipped
+      }
+      if (total < minTotal) {
+        minTotal = total;
+        expected = destination;
+      }
+    }
+    Assertions.assertEquals(expected, backend.getClosestDestinationFromAll(starts));
+    Assertions.assertThrows(NoSuchElementException.class,
+            () -> backend.getClosestDestinationFromAll(List.of("Memorial Union", "Nowhere")));
+  }
+
+  // tests that a route carries the path, the time of each leg and the total
+  @Test
+  public void testFindShortestRoute() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    Backend backend = new Backend(graph);
+    backend.loadGraphData("campus.dot");
+
+    Route<String> route = backend.findShortestRoute("Memorial Union", "Union South");
+    Assertions.assertEquals(backend.findLocationsOnShortestPath("Memorial Union", "Union South"),
+            route.getLocations());
+    List<Double> times = backend.findTimesOnShortestPath("Memorial Union", "Union South");
+    Assertions.assertEquals(route.getLocations().size() - 1, times.size());
+    double total = 0;
+    for (int i = 0; i < times.size(); i++) {
+      Assertions.assertEquals(graph.getEdge(route.getLocations().get(i),
+              route.getLocations().get(i + 1)), times.get(i));
+      total += times.get(i);
+    }
+    Assertions.assertEquals(total, route.getTotalCost());
+    Assertions.assertEquals(0.0, backend.findShortestRoute("Union South", "Union South").getTotalCost());
+  }
+
+  // loading keeps a search mode that was chosen for the graph, switches the
+  // default one to ALT, and only builds landmarks when they will be used
+  @Test
+  public void testLoadKeepsSearchMode() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    graph.setSearchMode(SearchMode.BIDIRECTIONAL);
+    new Backend(graph).loadGraphData("campus.dot");
+    Assertions.assertEquals(SearchMode.BIDIRECTIONAL, graph.getSearchMode());
+    Assertions.assertEquals(0, graph.snapshot().getLandmarks().getLandmarks().length);
+
+    // a CompactGraph is replaced on each load, and the replacement keeps its
+    // mode: only bidirectional searches settle nodes in the backward space
+    CompactGraph<String> compact = CompactGraph.of(new DijkstraGraph<String, Double>());
+    compact.setSearchMode(SearchMode.BIDIRECTIONAL);
+    Backend compactBackend = new Backend(compact);
+    compactBackend.loadGraphData("campus.dot");
+    compactBackend.loadGraphData("campus.dot");
+    compactBackend.findShortestRoute("Memorial Union", "Union South");
+    Assertions.assertTrue(SearchSpace.backward().getSettledCount() > 0);
+    Backend defaultBackend = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+    defaultBackend.loadGraphData("campus.dot");
+    defaultBackend.findShortestRoute("Memorial Union", "Union South");
+    Assertions.assertEquals(0, SearchSpace.backward().getSettledCount());
+
+    DijkstraGraph<String, Double> tabled = new DijkstraGraph<>();
+    Backend tabledBackend = new Backend(tabled);
+    tabledBackend.setAllPairsMemoryBudget(AllPairsIndex.DEFAULT_MEMORY_BUDGET);
+    tabledBackend.loadGraphData("campus.dot");
+    Assertions.assertEquals(SearchMode.ALT, tabled.getSearchMode());
+    Assertions.assertNotNull(tabled.snapshot().getAllPairs());
+    Assertions.assertEquals(0, tabled.snapshot().getLandmarks().getLandmarks().length);
+  }
+
+  // rendering into a shared StringBuilder gives the same html as the
+  // methods that return strings, and the prompts are built only once
+  @Test
+  public void testFrontendAppendsHTML() throws IOException {
+    Backend backend = new Backend(new DijkstraGraph<>());
+    backend.loadGraphData("campus.dot");
+    Frontend frontend = new Frontend(backend);
+
+    StringBuilder html = new StringBuilder("<div>");
+    frontend.appendShortestPathResponseHTML(html, "Memorial Union", "Union South");
+    frontend.appendClosestDestinationsFromAllResponseHTML(html, "Memorial Union, Union South");
+    frontend.appendShortestPathResponseHTML(html, "Memorial Union", "Nowhere");
+    Assertions.assertEquals("<div>"
+            + frontend.generateShortestPathResponseHTML("Memorial Union", "Union South")
+            + frontend.generateClosestDestinationsFromAllResponseHTML("Memorial Union, Union South")
+            + frontend.generateShortestPathResponseHTML("Memorial Union", "Nowhere"),
+            html.toString());
+    Assertions.assertTrue(html.toString().contains("<li>Computer Sciences and Statistics</li>"));
+    Assertions.assertTrue(html.toString().contains("<p>No path exists.</p>"));
+    Assertions.assertSame(frontend.generateShortestPathPromptHTML(),
+            frontend.generateShortestPathPromptHTML());
+  }
+
+  // the travel time matrix matches one shortestPathCost call per pair, and
+  // is written out as CSV with quoted names
+  @Test
+  public void testTravelTimeMatrix() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    Backend backend = new Backend(graph);
+    backend.loadGraphData("campus.dot");
+    List<String> locations = backend.getListOfAllLocations();
+    List<String> sources = locations.subList(0, 20);
+    List<String> targets = List.of(locations.get(5), "Atmospheric, Oceanic and Space Sciences",
+            locations.get(40), locations.get(5));
+
+    double[][] times = backend.computeTravelTimeMatrix(sources, targets);
+    Assertions.assertEquals(sources.size(), times.length);
+    for (int i = 0; i < sources.size(); i++) {
+      Assertions.assertEquals(targets.size(), times[i].length);
+      for (int j = 0; j < targets.size(); j++) {
+        String source = sources.get(i);
+        String target = targets.get(j);
+        if (times[i][j] == Double.POSITIVE_INFINITY)
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> graph.shortestPathCost(source, target));
+        else
+          Assertions.assertEquals(graph.shortestPathCost(source, target), times[i][j]);
+      }
+    }
+    // the all-pairs table gives the same matrix, as does a read-only graph
+    backend.setAllPairsMemoryBudget(AllPairsIndex.DEFAULT_MEMORY_BUDGET);
+    backend.loadGraphData("campus.dot");
+    Assertions.assertArrayEquals(times, backend.computeTravelTimeMatrix(sources, targets));
+    Backend compact = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+    compact.loadGraphData("campus.dot");
+    Assertions.assertArrayEquals(times, compact.computeTravelTimeMatrix(sources, targets));
+    Assertions.assertEquals(0, backend.computeTravelTimeMatrix(List.of(), targets).length);
+    Assertions.assertThrows(NoSuchElementException.class,
+            () -> backend.computeTravelTimeMatrix(sources, List.of("Nowhere")));
+    Assertions.assertTrue(compact.containsLocation("Memorial Union"));
+    Assertions.assertFalse(compact.containsLocation("Nowhere"));
+    Assertions.assertFalse(compact.containsLocation(null));
+
+    StringWriter csv = new StringWriter();
+    WebApp.writeMatrixCSV(csv, List.of("A", "B"), List.of("C, D", "E"),
+            new double[][] {{1.5, Double.POSITIVE_INFINITY}, {0.0, 2.0}});
+    Assertions.assertEquals("from,\"C, D\",E\r\nA,1.5,\r\nB,0.0,2.0\r\n", csv.toString());
+  }
 
-}
\ No newline at end of file
+}
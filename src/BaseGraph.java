@@ -1,32 +1,146 @@
+import java.util.ArrayList;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
 
 /**
  * This BaseGraph class contains stores a set of nodes, along with a set of
  * directed and weighted edges connecting those nodes.
+ *
+ * Each node indexes its leaving edges by their successor, so finding,
+ * inserting, and removing an edge takes constant time no matter how many
+ * edges a node has.  Each edge also remembers its position within both of
+ * its nodes' edge lists, so it is removed from them by swapping the last
+ * edge of each list into its place.
  */
 public class BaseGraph<NodeType, EdgeType extends Number> {
 
+  // nodes with more leaving edges than this look their edges up in a hash
+  // table, while smaller nodes just scan their short list
+  private static final int SCAN_LIMIT = 8;
+
   // Each node contains unique data along with two lists of directed edges
   protected class Node {
     public NodeType data;
-    public List<Edge> edgesLeaving = new LinkedList<>();
-    public List<Edge> edgesEntering = new LinkedList<>();
+    public List<Edge> edgesLeaving = new ArrayList<>(2);
+    public List<Edge> edgesEntering = new ArrayList<>(2);
+
+    // spreads nodes across the slots of their predecessors' tables
+    private final int hash = nextHash += 0x9E3779B9;
+    // open addressed table of the edges leaving this node, keyed by their
+    // successor, or null while this node has at most SCAN_LIMIT edges
+    private Edge[] bySuccessor = null;
 
     public Node(NodeType data) {
       this.data = data;
     }
+
+    // the home slot of edges entering this node, in a table of mask + 1 slots
+    private int slot(int mask) {
+      return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    // returns the edge from this node to succ, or null when there is none
+    private Edge edgeTo(Node succ) {
+      if (bySuccessor == null) {
+        for (Edge edge : edgesLeaving)
+          if (edge.successor == succ)
+            return edge;
+        return null;
+      }
+      int mask = bySuccessor.length - 1;
+      for (int slot = succ.slot(mask); bySuccessor[slot] != null; slot = (slot + 1) & mask)
+        if (bySuccessor[slot].successor == succ)
+          return bySuccessor[slot];
+      return null;
+    }
+
+    // adds a new edge leaving this node
+    private void addLeaving(Edge edge) {
+      edge.leavingIndex = edgesLeaving.size();
+      edgesLeaving.add(edge);
+      if (bySuccessor != null && edgesLeaving.size() * 2 <= bySuccessor.length)
+        insertSlot(edge);
+      else if (edgesLeaving.size() > SCAN_LIMIT)
+        rebuildTable();
+    }
+
+    // removes an edge leaving this node
+    private void removeLeaving(Edge edge) {
+      swapRemove(edgesLeaving, edge.leavingIndex, true);
+      if (bySuccessor == null)
+        return;
+      // shift back later edges of the same probe run into the hole, the same
+      // way OpenHashMap removes keys
+      int mask = bySuccessor.length - 1;
+      int hole = edge.successor.slot(mask);
+      while (bySuccessor[hole] != edge)
+        hole = (hole + 1) & mask;
+      for (int slot = (hole + 1) & mask; bySuccessor[slot] != null; slot = (slot + 1) & mask) {
+        int home = bySuccessor[slot].successor.slot(mask);
+        if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+          bySuccessor[hole] = bySuccessor[slot];
+          hole = slot;
+        }
+      }
+      bySuccessor[hole] = null;
+    }
+
+    // sizes the table to keep it at most half full, and fills it
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void rebuildTable() {
+      bySuccessor = (Edge[]) new BaseGraph.Edge[Integer.highestOneBit(edgesLeaving.size() * 4 - 1) << 1];
+      for (Edge edge : edgesLeaving)
+        insertSlot(edge);
+    }
+
+    private void insertSlot(Edge edge) {
+      int mask = bySuccessor.length - 1;
+      int slot = edge.successor.slot(mask);
+      while (bySuccessor[slot] != null)
+        slot = (slot + 1) & mask;
+      bySuccessor[slot] = edge;
+    }
+
+    // adds a new edge entering this node
+    private void addEntering(Edge edge) {
+      edge.enteringIndex = edgesEntering.size();
+      edgesEntering.add(edge);
+    }
+
+    // removes an edge entering this node
+    private void removeEntering(Edge edge) {
+      swapRemove(edgesEntering, edge.enteringIndex, false);
+    }
+  }
+
+  // removes the edge at index from list by moving the list's last edge into
+  // its place, and updates the moved edge's position within that list
+  private void swapRemove(List<Edge> list, int index, boolean leaving) {
+    Edge last = list.remove(list.size() - 1);
+    if (index == list.size())
+      return;
+    list.set(index, last);
+    if (leaving)
+      last.leavingIndex = index;
+    else
+      last.enteringIndex = index;
   }
 
   // Nodes can be retrieved from this map by their unique data
   protected MapADT<NodeType, Node> nodes = null;
 
+  // the hash of the most recently created node
+  private int nextHash = 0;
+
   // Each edge contains data/weight, and two nodes that it connects
   protected class Edge {
     public EdgeType data; // the weight or cost of this edge
     public Node predecessor;
     public Node successor;
+    // positions of this edge within predecessor.edgesLeaving and within
+    // successor.edgesEntering
+    private int leavingIndex;
+    private int enteringIndex;
 
     public Edge(EdgeType data, Node pred, Node succ) {
       this.data = data;
@@ -38,6 +152,10 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
   protected int edgeCount = 0;
   // Edges can be retrieved through the edge lists in either connected node
 
+  // Counts changes to the nodes and edges (including edge weights), so that
+  // anything computed from this graph can tell when it has become stale
+  protected int modCount = 0;
+
   /**
    * Constructor for BaseGraph that provides the map the graph uses.
    *
@@ -60,6 +178,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     if (nodes.containsKey(data))
       return false; // throws NPE when data's null
     nodes.put(data, new Node(data));
+    modCount++;
     return true;
   }
 
@@ -78,11 +197,19 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
       return false; // throws NPE when data==null
     Node oldNode = nodes.remove(data);
     // remove all edges entering neighboring nodes from this one
-    for (Edge edge : oldNode.edgesLeaving)
-      edge.successor.edgesEntering.remove(edge);
-    // remove all edges leaving neighboring nodes toward this one
+    for (Edge edge : oldNode.edgesLeaving) {
+      if (edge.successor != oldNode)
+        edge.successor.removeEntering(edge);
+      edgeCount--;
+    }
+    // remove all edges leaving neighboring nodes toward this one (edges from
+    // this node to itself were already counted above)
     for (Edge edge : oldNode.edgesEntering)
-      edge.predecessor.edgesLeaving.remove(edge);
+      if (edge.predecessor != oldNode) {
+        edge.predecessor.removeLeaving(edge);
+        edgeCount--;
+      }
+    modCount++;
     return true;
   }
 
@@ -128,22 +255,23 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
    */
   public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
     // find nodes associated with node data, and return false when not found
-    Node predNode = nodes.get(pred);
-    Node succNode = nodes.get(succ);
+    Node predNode = nodes.getOrDefault(pred, null);
+    Node succNode = nodes.getOrDefault(succ, null);
     if (predNode == null || succNode == null)
       return false;
-    try {
+    Edge existingEdge = predNode.edgeTo(succNode);
+    if (existingEdge != null) {
       // when an edge alread exists within the graph, update its weight
-      Edge existingEdge = getEdgeHelper(pred, succ);
       existingEdge.data = weight;
-    } catch (NoSuchElementException e) {
+    } else {
       // otherwise create a new edges
       Edge newEdge = new Edge(weight, predNode, succNode);
       this.edgeCount++;
       // and insert it into each of its adjacent nodes' respective lists
-      predNode.edgesLeaving.add(newEdge);
-      succNode.edgesEntering.add(newEdge);
+      predNode.addLeaving(newEdge);
+      succNode.addEntering(newEdge);
     }
+    modCount++;
     return true;
   }
 
@@ -156,19 +284,17 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
    *         false if such an edge is not found in the graph
    */
   public boolean removeEdge(NodeType pred, NodeType succ) {
-    try {
-      // when an edge exists
-      Edge oldEdge = getEdgeHelper(pred, succ);
-      // remove it from the edge lists of each adjacent node
-      oldEdge.predecessor.edgesLeaving.remove(oldEdge);
-      oldEdge.successor.edgesEntering.remove(oldEdge);
-      // and decrement the edge count before removing
-      this.edgeCount--;
-      return true;
-    } catch (NoSuchElementException e) {
-      // when no such edge exists, return false instead
+    Edge oldEdge = findEdge(pred, succ);
+    // when no such edge exists, return false instead
+    if (oldEdge == null)
       return false;
-    }
+    // remove it from the edge lists of each adjacent node
+    oldEdge.predecessor.removeLeaving(oldEdge);
+    oldEdge.successor.removeEntering(oldEdge);
+    // and decrement the edge count before removing
+    this.edgeCount--;
+    modCount++;
+    return true;
   }
 
   /**
@@ -179,12 +305,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
    * @return true if the edge is found in the graph, or false other
    */
   public boolean containsEdge(NodeType pred, NodeType succ) {
-    try {
-      getEdgeHelper(pred, succ);
-      return true;
-    } catch (NoSuchElementException e) {
-      return false;
-    }
+    return findEdge(pred, succ) != null;
   }
 
   /**
@@ -201,15 +322,28 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
   }
 
   protected Edge getEdgeHelper(NodeType pred, NodeType succ) {
-    Node predNode = nodes.get(pred);
-    // search for edge through the predecessor's list of leaving edges
-    for (Edge edge : predNode.edgesLeaving)
-      // compare succ to the data in each leaving edge's successor
-      if (edge.successor.data.equals(succ))
-        return edge;
+    Edge edge = findEdge(pred, succ);
     // when no such edge can be found, throw NSE
-    throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
-            succ.toString());
+    if (edge == null)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    return edge;
+  }
+
+  /**
+   * Looks up the edge from pred to succ without throwing, so that callers
+   * that expect to miss (like insertEdge, while loading) do not pay for an
+   * exception each time.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return that edge, or null when either node or the edge is not found
+   */
+  protected Edge findEdge(NodeType pred, NodeType succ) {
+    Node predNode = nodes.getOrDefault(pred, null);
+    Node succNode = nodes.getOrDefault(succ, null);
+    if (predNode == null || succNode == null)
+      return null;
+    return predNode.edgeTo(succNode);
   }
 
   /**
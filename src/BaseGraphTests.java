@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class BaseGraphTests {
+
+  // tests random insertions, updates, and removals of edges and nodes against
+  // a HashMap of the edges that should be in the graph, with enough edges
+  // per node that their successor tables are built, grown, and shrunk
+  @Test
+  public void testEdgeLookupsMatchHashMap() {
+    Random random = new Random(20);
+    BaseGraph<String, Double> graph = new BaseGraph<>(new OpenHashMap<>());
+    Map<String, Double> expected = new HashMap<>();
+    int nodes = 30;
+    for (int i = 0; i < nodes; i++)
+      graph.insertNode("n" + i);
+
+    for (int step = 0; step < 20000; step++) {
+      String pred = "n" + random.nextInt(nodes);
+      String succ = "n" + random.nextInt(nodes);
+      String key = pred + ">" + succ;
+      int action = random.nextInt(10);
+      if (action < 6) {
+        double weight = random.nextInt(100);
+        Assertions.assertTrue(graph.insertEdge(pred, succ, weight));
+        expected.put(key, weight);
+      } else if (action < 9) {
+        Assertions.assertEquals(expected.remove(key) != null, graph.removeEdge(pred, succ));
+      } else if (random.nextInt(20) == 0) {
+        // remove a node with all its edges, then put it back without any
+        graph.removeNode(pred);
+        expected.keySet().removeIf(edge -> edge.startsWith(pred + ">")
+                || edge.endsWith(">" + pred));
+        graph.insertNode(pred);
+      }
+
+      Assertions.assertEquals(expected.containsKey(key), graph.containsEdge(pred, succ));
+      if (expected.containsKey(key))
+        Assertions.assertEquals(expected.get(key), graph.getEdge(pred, succ));
+      else
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.getEdge(pred, succ));
+      Assertions.assertEquals(expected.size(), graph.getEdgeCount());
+    }
+
+    // every edge list agrees with the map as well
+    int leaving = 0;
+    int entering = 0;
+    for (String node : graph.getAllNodes()) {
+      for (BaseGraph<String, Double>.Edge edge : graph.nodes.get(node).edgesLeaving)
+        Assertions.assertEquals(expected.get(node + ">" + edge.successor.data), edge.data);
+      for (BaseGraph<String, Double>.Edge edge : graph.nodes.get(node).edgesEntering)
+        Assertions.assertEquals(expected.get(edge.predecessor.data + ">" + node), edge.data);
+      leaving += graph.nodes.get(node).edgesLeaving.size();
+      entering += graph.nodes.get(node).edgesEntering.size();
+    }
+    Assertions.assertEquals(expected.size(), leaving);
+    Assertions.assertEquals(expected.size(), entering);
+  }
+
+  // tests that missing nodes are reported without exceptions escaping, and
+  // that removing a node removes its edges (including one to itself) from
+  // the edge count
+  @Test
+  public void testMissingNodesAndRemoval() {
+    BaseGraph<String, Double> graph = new BaseGraph<>(new OpenHashMap<>());
+    for (String node : List.of("A", "B", "C"))
+      graph.insertNode(node);
+    Assertions.assertFalse(graph.insertEdge("A", "Z", 1.0));
+    Assertions.assertFalse(graph.insertEdge(null, "A", 1.0));
+    Assertions.assertFalse(graph.containsEdge("Z", "A"));
+    Assertions.assertFalse(graph.removeEdge("A", "Z"));
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.getEdge("Z", "A"));
+
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("B", "A", 2.0);
+    graph.insertEdge("B", "B", 3.0);
+    graph.insertEdge("B", "C", 4.0);
+    graph.insertEdge("C", "A", 5.0);
+    Assertions.assertEquals(5, graph.getEdgeCount());
+    Assertions.assertTrue(graph.removeNode("B"));
+    Assertions.assertEquals(1, graph.getEdgeCount());
+    Assertions.assertTrue(graph.containsEdge("C", "A"));
+    Assertions.assertFalse(graph.containsEdge("A", "B"));
+    Assertions.assertEquals(0, graph.nodes.get("A").edgesLeaving.size());
+    Assertions.assertEquals(0, graph.nodes.get("C").edgesEntering.size());
+  }
+
+}
@@ -0,0 +1,65 @@
+import java.util.function.LongSupplier;
+
+/**
+ * This Benchmark class is a small timing harness for the benchmark mains in
+ * this project.  Each benchmark is a round of work that is run a few times
+ * to let the JIT compile it, and then timed over several more rounds.  The
+ * value each round returns is added to a checksum that is printed, so the
+ * JIT cannot skip work whose result is never used.
+ *
+ * The number of rounds can be changed with -Dbench.warmup=N and
+ * -Dbench.rounds=N, for quicker runs or steadier results.
+ */
+public class Benchmark {
+
+  private static final int WARMUP_ROUNDS = Integer.getInteger("bench.warmup", 5);
+  private static final int MEASURED_ROUNDS = Integer.getInteger("bench.rounds", 10);
+
+  /**
+   * Runs one benchmark and prints its average and best time per operation.
+   *
+   * @param label        what is being measured, printed at the start of the line
+   * @param opsPerRound  how many operations each round performs
+   * @param round        does one round of work and returns a checksum of it
+   * @return the average time per operation in nanoseconds
+   */
+  public static double run(String label, int opsPerRound, LongSupplier round) {
+    return run(label, WARMUP_ROUNDS, MEASURED_ROUNDS, opsPerRound, round);
+  }
+
+  /**
+   * Like run(label, opsPerRound, round), with a fixed number of rounds for
+   * benchmarks that are too slow to repeat the usual number of times.
+   */
+  public static double run(String label, int warmupRounds, int measuredRounds,
+                           int opsPerRound, LongSupplier round) {
+    long checksum = 0;
+    for (int i = 0; i < warmupRounds; i++)
+      checksum += round.getAsLong();
+    long total = 0;
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < measuredRounds; i++) {
+      long start = System.nanoTime();
+      checksum += round.getAsLong();
+      long elapsed = System.nanoTime() - start;
+      total += elapsed;
+      best = Math.min(best, elapsed);
+    }
+    double average = (double) total / measuredRounds / opsPerRound;
+    System.out.printf("  %-44s %s/op avg  %s/op best  (checksum %d)%n", label,
+            format(average), format((double) best / opsPerRound), checksum);
+    return average;
+  }
+
+  // prints a time in nanoseconds with a unit that keeps it short
+  private static String format(double nanos) {
+    if (nanos >= 1e9)
+      return String.format("%9.2f s ", nanos / 1e9);
+    if (nanos >= 1e6)
+      return String.format("%9.2f ms", nanos / 1e6);
+    if (nanos >= 1e3)
+      return String.format("%9.2f us", nanos / 1e3);
+    return String.format("%9.1f ns", nanos);
+  }
+
+}
@@ -0,0 +1,809 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * This CompactGraph class is an immutable copy of a BaseGraph that stores its
+ * edges in compressed sparse row (CSR) arrays instead of lists of Edge
+ * objects.  Every node is numbered with an id from 0 to getNodeCount()-1,
+ * and the edges leaving the node with id i are stored at the indexes from
+ * offsets[i] (inclusive) to offsets[i+1] (exclusive) of the targets array
+ * (the successor's id) and of the weights array (the edge's weight).
+ *
+ * Use CompactGraph.of(graph) to freeze a mutable graph once it is loaded.
+ * Methods that would change this graph throw UnsupportedOperationException.
+ */
+public class CompactGraph<NodeType> implements GraphADT<NodeType, Double> {
+
+  // node data by id, and node id by data
+  protected final List<NodeType> names;
+  protected final MapADT<NodeType, Integer> ids;
+
+  // edges leaving node i are at indexes offsets[i] to offsets[i+1]-1
+  protected final int[] offsets;
+  protected final int[] targets;
+  protected final double[] weights;
+
+  // the same edges grouped by the node they enter: edges entering node i are
+  // at indexes inOffsets[i] to inOffsets[i+1]-1 of sources and inWeights
+  protected final int[] inOffsets;
+  protected final int[] sources;
+  protected final double[] inWeights;
+
+  // the algorithm used by shortestPathData and shortestPathCost
+  private volatile SearchMode searchMode = SearchMode.DIJKSTRA;
+  // distance tables for the ALT search mode, or null until prepared
+  private volatile LandmarkIndex landmarks = null;
+  // shortest paths between all pairs of nodes, or null until prepared
+  private volatile AllPairsIndex allPairs = null;
+  // shortest path trees of recently used sources, or null until prepared
+  private volatile ShortestPathTreeCache trees = null;
+
+  /**
+   * Constructor that takes ownership of already built CSR arrays.
+   *
+   * @param names   the data stored in each node, indexed by node id
+   * @param ids     the id of each node, keyed by node data
+   * @param offsets the start of each node's edges, with one extra entry at
+   *                the end that holds the total number of edges
+   * @param targets the successor id of each edge
+   * @param weights the weight of each edge
+   */
+  protected CompactGraph(List<NodeType> names, MapADT<NodeType, Integer> ids,
+                         int[] offsets, int[] targets, double[] weights) {
+    this.names = Collections.unmodifiableList(names);
+    this.ids = ids;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+
+    // count the edges entering each node, then copy each edge into its row
+    inOffsets = new int[names.size() + 1];
+    for (int target : targets)
+      inOffsets[target + 1]++;
+    for (int i = 0; i < names.size(); i++)
+      inOffsets[i + 1] += inOffsets[i];
+    sources = new int[targets.length];
+    inWeights = new double[targets.length];
+    int[] next = Arrays.copyOf(inOffsets, names.size());
+    for (int node = 0; node < names.size(); node++)
+      for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+        sources[next[targets[i]]] = node;
+        inWeights[next[targets[i]]] = weights[i];
+        next[targets[i]]++;
+      }
+  }
+
+  // copy of other with different edge weights, sharing every other array
+  private CompactGraph(CompactGraph<NodeType> other, double[] weights, double[] inWeights) {
+    this.names = other.names;
+    this.ids = other.ids;
+    this.offsets = other.offsets;
+    this.targets = other.targets;
+    this.weights = weights;
+    this.inOffsets = other.inOffsets;
+    this.sources = other.sources;
+    this.inWeights = inWeights;
+    this.searchMode = other.searchMode;
+  }
+
+  // maps each node's data to its position within names
+  protected static <NodeType> MapADT<NodeType, Integer> indexNames(List<NodeType> names) {
+    MapADT<NodeType, Integer> ids = new OpenHashMap<>(Math.max(64, names.size() * 2));
+    for (int i = 0; i < names.size(); i++)
+      ids.put(names.get(i), i);
+    return ids;
+  }
+
+  /**
+   * Builds a CompactGraph with the same nodes and edges as a mutable graph.
+   * Later changes to that graph are not reflected in the CompactGraph.
+   *
+   * @param graph the graph to copy
+   * @return an immutable CSR copy of graph
+   */
+  public static <NodeType, EdgeType extends Number> CompactGraph<NodeType> of(
+          BaseGraph<NodeType, EdgeType> graph) {
+    List<NodeType> names = new ArrayList<>(graph.getAllNodes());
+    MapADT<NodeType, Integer> ids = indexNames(names);
+
+    // first pass counts the edges leaving each node
+    int[] offsets = new int[names.size() + 1];
+    for (int i = 0; i < names.size(); i++)
+      offsets[i + 1] = offsets[i] + graph.nodes.get(names.get(i)).edgesLeaving.size();
+
+    // second pass copies each edge into its node's row
+    int[] targets = new int[offsets[names.size()]];
+    double[] weights = new double[targets.length];
+    for (int i = 0; i < names.size(); i++) {
+      int next = offsets[i];
+      for (BaseGraph<NodeType, EdgeType>.Edge edge : graph.nodes.get(names.get(i)).edgesLeaving) {
+        targets[next] = ids.get(edge.successor.data);
+        weights[next] = edge.data.doubleValue();
+        next++;
+      }
+    }
+    return new CompactGraph<>(names, ids, offsets, targets, weights);
+  }
+
+  /**
+   * Returns the id of the node containing data.
+   *
+   * @param data the node data to look up
+   * @return the id of that node
+   * @throws NoSuchElementException if data is null or not in this graph
+   */
+  public int idOf(NodeType data) {
+    Integer id = ids.getOrDefault(data, null);
+    if (id == null)
+      throw new NoSuchElementException("Node not found in the graph");
+    return id;
+  }
+
+  // looks up the id of the node containing data with a single probe, or
+  // returns -1 when there is no such node
+  private int findId(NodeType data) {
+    Integer id = ids.getOrDefault(data, null);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the data stored in the node with the provided id.
+   *
+   * @param id the node's id
+   * @return the data stored in that node
+   */
+  public NodeType nodeAt(int id) {
+    return names.get(id);
+  }
+
+  public boolean insertNode(NodeType data) {
+    throw new UnsupportedOperationException("CompactGraph is read-only");
+  }
+
+  public boolean removeNode(NodeType data) {
+    throw new UnsupportedOperationException("CompactGraph is read-only");
+  }
+
+  public boolean containsNode(NodeType data) {
+    return data != null && ids.containsKey(data);
+  }
+
+  /**
+   * Retrieves a list of all node data from this graph, ordered by node id.
+   *
+   * @return read-only list of all node data
+   */
+  public List<NodeType> getAllNodes() {
+    return names;
+  }
+
+  public int getNodeCount() {
+    return names.size();
+  }
+
+  public boolean insertEdge(NodeType pred, NodeType succ, Double weight) {
+    throw new UnsupportedOperationException("CompactGraph is read-only");
+  }
+
+  public boolean removeEdge(NodeType pred, NodeType succ) {
+    throw new UnsupportedOperationException("CompactGraph is read-only");
+  }
+
+  public boolean containsEdge(NodeType pred, NodeType succ) {
+    int from = findId(pred);
+    int to = findId(succ);
+    return from >= 0 && to >= 0 && edgeIndex(from, to) >= 0;
+  }
+
+  public Double getEdge(NodeType pred, NodeType succ) {
+    int from = findId(pred);
+    int to = findId(succ);
+    int index = from >= 0 && to >= 0 ? edgeIndex(from, to) : -1;
+    if (index < 0)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    return weights[index];
+  }
+
+  // returns the index of the edge from pred to succ, or -1 when there is none
+  protected int edgeIndex(int pred, int succ) {
+    for (int i = offsets[pred]; i < offsets[pred + 1]; i++)
+      if (targets[i] == succ)
+        return i;
+    return -1;
+  }
+
+  public int getEdgeCount() {
+    return targets.length;
+  }
+
+  /**
+   * Returns a copy of this graph in which the edge from pred to succ has a
+   * different weight.  Only the weight arrays are copied.  The landmark
+   * tables, all-pairs table and cached trees of this graph are repaired for
+   * the change rather than built again, and the parts of them that the
+   * change does not affect are shared with this graph.  This graph itself
+   * is not changed, so searches running on it are not disturbed.
+   *
+   * @param pred   the data item in the node that the edge leaves
+   * @param succ   the data item in the node that the edge enters
+   * @param weight the new non-negative weight of the edge
+   * @return a graph with the new weight, or this graph if it already has it
+   * @throws NoSuchElementException if there is no edge from pred to succ
+   */
+  public CompactGraph<NodeType> withEdgeWeight(NodeType pred, NodeType succ, double weight) {
+    int from = findId(pred);
+    int to = findId(succ);
+    int index = from >= 0 && to >= 0 ? edgeIndex(from, to) : -1;
+    if (index < 0)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    double oldWeight = weights[index];
+    if (oldWeight == weight)
+      return this;
+
+    double[] newWeights = weights.clone();
+    newWeights[index] = weight;
+    double[] newInWeights = inWeights.clone();
+    for (int i = inOffsets[to]; i < inOffsets[to + 1]; i++)
+      if (sources[i] == from)
+        newInWeights[i] = weight;
+    CompactGraph<NodeType> changed = new CompactGraph<>(this, newWeights, newInWeights);
+
+    ShortestPathRepair repair = new ShortestPathRepair(changed, from, to, oldWeight, weight);
+    LandmarkIndex oldLandmarks = landmarks;
+    if (oldLandmarks != null)
+      changed.landmarks = oldLandmarks.repaired(repair);
+    AllPairsIndex oldAllPairs = allPairs;
+    if (oldAllPairs != null)
+      changed.allPairs = oldAllPairs.repaired(repair);
+    ShortestPathTreeCache oldTrees = trees;
+    if (oldTrees != null)
+      changed.trees = oldTrees.repaired(changed, repair);
+    return changed;
+  }
+
+  /**
+   * Selects the algorithm used by shortestPathData and shortestPathCost when
+   * no mode is passed to them.  Every mode finds paths of the same cost.
+   *
+   * @param searchMode the algorithm to use
+   */
+  public void setSearchMode(SearchMode searchMode) {
+    if (searchMode == null)
+      throw new NullPointerException("searchMode cannot be null");
+    this.searchMode = searchMode;
+  }
+
+  public SearchMode getSearchMode() {
+    return searchMode;
+  }
+
+  /**
+   * Chooses landmarks and computes their distance tables, which the ALT
+   * search mode uses to direct its searches toward their end nodes.  This
+   * runs two full searches per landmark, so it is meant to be called once
+   * after a graph is loaded.
+   *
+   * @param count the number of landmarks to choose
+   */
+  public void prepareLandmarks(int count) {
+    landmarks = LandmarkIndex.build(this, count);
+  }
+
+  /**
+   * Returns the landmark tables used by the ALT search mode.
+   *
+   * @return the landmark tables, or null if they have not been prepared
+   */
+  public LandmarkIndex getLandmarks() {
+    return landmarks;
+  }
+
+  /**
+   * Precomputes the shortest paths between every pair of nodes, so that
+   * shortestPathData and shortestPathCost can answer from a table instead of
+   * searching.  This is skipped when the table would not fit in the memory
+   * budget, and searches are used as before.
+   *
+   * @param memoryBudget the most bytes the table may take
+   * @return true if the table was built, false if the graph is too large
+   */
+  public boolean prepareAllPairs(long memoryBudget) {
+    allPairs = AllPairsIndex.build(this, memoryBudget);
+    return allPairs != null;
+  }
+
+  /**
+   * Returns the all-pairs shortest path table.
+   *
+   * @return the table, or null if it has not been built
+   */
+  public AllPairsIndex getAllPairs() {
+    return allPairs;
+  }
+
+  /**
+   * Starts keeping the shortest path trees of recently used sources.  Each
+   * query from a source that has no tree yet runs one full search and keeps
+   * its tree, and later queries from that source (to any end) walk the tree
+   * instead of searching.  The least recently used trees are dropped to stay
+   * within the memory budget.  The all-pairs table, when prepared, is still
+   * used first.
+   *
+   * @param memoryBudget the most bytes the cached trees may take
+   * @return true if the cache was created, false if not even one tree fits
+   *         within the budget (then queries search as before)
+   */
+  public boolean prepareTreeCache(long memoryBudget) {
+    trees = ShortestPathTreeCache.create(this, memoryBudget);
+    return trees != null;
+  }
+
+  /**
+   * Returns the cache of shortest path trees.
+   *
+   * @return the cache, or null if it has not been prepared
+   */
+  public ShortestPathTreeCache getTreeCache() {
+    return trees;
+  }
+
+  /**
+   * Returns the tree of shortest paths from source to every node, from the
+   * tree cache when it is prepared and holds one, or else from a new search.
+   *
+   * @param source the node to build the tree from
+   * @return the tree rooted at source, indexed by node id
+   * @throws NoSuchElementException if source is not in this graph
+   */
+  public ShortestPathTree shortestPathTree(NodeType source) {
+    int sourceId = idOf(source);
+    ShortestPathTreeCache cache = trees;
+    if (cache != null)
+      return treeFrom(sourceId, cache);
+    SearchSpace.backward().clearStatistics();
+    return ShortestPathTree.build(this, sourceId);
+  }
+
+  // returns the cached tree from start, building it when it is not cached;
+  // the search statistics count the nodes settled while building it
+  private ShortestPathTree treeFrom(int start, ShortestPathTreeCache cache) {
+    SearchSpace.backward().clearStatistics();
+    ShortestPathTree tree = cache.get(start);
+    if (tree != null) {
+      SearchSpace.forward().clearStatistics();
+      return tree;
+    }
+    // built outside of the cache's lock, so other sources are not held up
+    return cache.add(ShortestPathTree.build(this, start));
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until every reachable node is
+   * settled, following edges forward (or backward when reverse is true).
+   * The search runs in the calling thread's forward SearchSpace, which is
+   * returned with the distance to (or from) every node.
+   *
+   * @param source  the id of the node to search from
+   * @param reverse true to follow edges from their successor to predecessor
+   * @return the search space holding the distance of every node
+   */
+  protected SearchSpace sweep(int source, boolean reverse) {
+    int[] rowOffsets = reverse ? inOffsets : offsets;
+    int[] neighbors = reverse ? sources : targets;
+    double[] edgeWeights = reverse ? inWeights : weights;
+    SearchSpace space = SearchSpace.forThread(names.size());
+    space.relax(source, 0, -1);
+
+    while (!space.queue.isEmpty()) {
+      int current = space.settleNext();
+      double cost = space.dist[current];
+      for (int i = rowOffsets[current]; i < rowOffsets[current + 1]; i++)
+        if (!space.isSettled(neighbors[i]))
+          space.relax(neighbors[i], cost + edgeWeights[i], current);
+    }
+    return space;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until every node marked in
+   * isTarget is settled (or no more nodes can be reached), in the calling
+   * thread's forward SearchSpace.
+   *
+   * @param source      the id of the node to search from
+   * @param isTarget    marks the ids of the nodes to search for
+   * @param targetCount the number of marked nodes
+   * @return the search space holding the distance of every target reached
+   */
+  protected SearchSpace sweepTo(int source, boolean[] isTarget, int targetCount) {
+    SearchSpace space = SearchSpace.forThread(names.size());
+    space.relax(source, 0, -1);
+    int remaining = targetCount;
+
+    while (remaining > 0 && !space.queue.isEmpty()) {
+      int current = space.settleNext();
+      if (isTarget[current])
+        remaining--;
+      double cost = space.dist[current];
+      for (int i = offsets[current]; i < offsets[current + 1]; i++)
+        if (!space.isSettled(targets[i]))
+          space.relax(targets[i], cost + weights[i], current);
+    }
+    return space;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from start until end is settled.  The search
+   * runs in the calling thread's SearchSpace, which is returned with the
+   * distance and predecessor of every node the search reached.
+   *
+   * @param start the id of the node to search from
+   * @param end   the id of the node to search for
+   * @return the search space that end was settled in
+   * @throws NoSuchElementException when there is no path from start to end
+   */
+  protected SearchSpace search(int start, int end) {
+    SearchSpace space = SearchSpace.forThread(names.size());
+    space.relax(start, 0, -1);
+
+    while (!space.queue.isEmpty()) {
+      int current = space.settleNext();
+      if (current == end)
+        return space;
+      double cost = space.dist[current];
+      for (int i = offsets[current]; i < offsets[current + 1]; i++)
+        if (!space.isSettled(targets[i]))
+          space.relax(targets[i], cost + weights[i], current);
+    }
+    throw new NoSuchElementException("No path");
+  }
+
+  /**
+   * Runs a bidirectional Dijkstra search: one search expands forward from
+   * start (in this thread's forward SearchSpace) while another expands
+   * backward from end over entering edges (in its backward SearchSpace).
+   * Every node reached by both is a candidate meeting point, and the search
+   * stops once the two queues' lowest keys add up to at least the cost of
+   * the best meeting point, since no later meeting point can be cheaper.
+   *
+   * @param start the id of the node to search from
+   * @param end   the id of the node to search for
+   * @return the node where the shortest path passes from the forward search
+   *         (predecessors toward start) to the backward search (predecessors
+   *         toward end)
+   * @throws NoSuchElementException when there is no path from start to end
+   */
+  protected int bidirectionalSearch(int start, int end) {
+    SearchSpace forward = SearchSpace.forThread(names.size());
+    SearchSpace backward = SearchSpace.backwardForThread(names.size());
+    forward.relax(start, 0, -1);
+    backward.relax(end, 0, -1);
+    double best = start == end ? 0 : Double.POSITIVE_INFINITY;
+    int meet = start == end ? start : -1;
+
+    while (!forward.queue.isEmpty() && !backward.queue.isEmpty()
+            && forward.queue.peekKey() + backward.queue.peekKey() < best) {
+      // expand whichever side has the closer frontier
+      boolean isForward = forward.queue.peekKey() <= backward.queue.peekKey();
+      SearchSpace space = isForward ? forward : backward;
+      SearchSpace other = isForward ? backward : forward;
+      int[] rowOffsets = isForward ? offsets : inOffsets;
+      int[] neighbors = isForward ? targets : sources;
+      double[] edgeWeights = isForward ? weights : inWeights;
+
+      int current = space.settleNext();
+      double cost = space.dist[current];
+      for (int i = rowOffsets[current]; i < rowOffsets[current + 1]; i++) {
+        int next = neighbors[i];
+        if (!space.isSettled(next) && space.relax(next, cost + edgeWeights[i], current)
+                && other.isReached(next)) {
+          double through = space.dist(next) + other.dist(next);
+          if (through < best) {
+            best = through;
+            meet = next;
+          }
+        }
+      }
+    }
+    if (meet == -1)
+      throw new NoSuchElementException("No path");
+    return meet;
+  }
+
+  /**
+   * Runs A* search from start until end is settled, using the lower bounds
+   * from lowerBounds as its heuristic.  These bounds are admissible but are
+   * not always consistent (they are lowered a little to allow for rounding),
+   * so a settled node is queued again whenever a cheaper path to it shows up.
+   *
+   * @return the search space that end was settled in
+   * @throws NoSuchElementException when there is no path from start to end
+   */
+  protected SearchSpace landmarkSearch(int start, int end, LandmarkIndex lowerBounds) {
+    SearchSpace space = SearchSpace.forThread(names.size());
+    double startBound = lowerBounds.lowerBound(start, end);
+    if (startBound < Double.POSITIVE_INFINITY)
+      space.relax(start, 0, -1, startBound);
+
+    while (!space.queue.isEmpty()) {
+      int current = space.settleNext();
+      if (current == end)
+        return space;
+      double cost = space.dist[current];
+      for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+        int next = targets[i];
+        double newCost = cost + weights[i];
+        if (newCost < space.dist(next)) {
+          // nodes that the landmarks prove cannot reach end are never queued
+          double bound = lowerBounds.lowerBound(next, end);
+          if (bound < Double.POSITIVE_INFINITY)
+            space.relax(next, newCost, current, newCost + bound);
+        }
+      }
+    }
+    throw new NoSuchElementException("No path");
+  }
+
+  /**
+   * Searches for the shortest path from start to end with the provided
+   * algorithm.
+   * Afterward this thread's forward SearchSpace holds the path from start to
+   * the returned meeting node, and when that is not end, the backward
+   * SearchSpace holds the rest of the path from there to end.
+   */
+  protected int route(int start, int end, SearchMode mode) {
+    if (mode == SearchMode.BIDIRECTIONAL)
+      return bidirectionalSearch(start, end);
+    // only bidirectional searches do any work in the backward space
+    SearchSpace.backward().clearStatistics();
+    LandmarkIndex lowerBounds = landmarks;
+    if (mode == SearchMode.ALT && lowerBounds != null)
+      landmarkSearch(start, end, lowerBounds);
+    else
+      search(start, end);
+    return end;
+  }
+
+  /**
+   * Returns the number of nodes settled by the last shortestPathData or
+   * shortestPathCost call on the calling thread (in any graph), counting
+   * both halves of a bidirectional search.
+   *
+   * @return the number of nodes settled by that search
+   */
+  public static int getLastSettledCount() {
+    return SearchSpace.forward().getSettledCount()
+            + SearchSpace.backward().getSettledCount();
+  }
+
+  /**
+   * Returns the largest number of nodes that were queued at once during the
+   * last shortestPathData or shortestPathCost call on the calling thread,
+   * adding up both halves of a bidirectional search.
+   *
+   * @return the largest queue size of that search
+   */
+  public static int getLastMaxQueueSize() {
+    return SearchSpace.forward().getMaxQueueSize()
+            + SearchSpace.backward().getMaxQueueSize();
+  }
+
+  // lists the node ids along the path to end that passes through meet
+  protected int[] pathIdsThrough(int meet, int end) {
+    SearchSpace forward = SearchSpace.forward();
+    SearchSpace backward = SearchSpace.backward();
+    int length = 0;
+    for (int node = meet; node != -1; node = forward.pred(node))
+      length++;
+    int meetIndex = length - 1;
+    if (meet != end)
+      for (int node = backward.pred(meet); node != -1; node = backward.pred(node))
+        length++;
+
+    int[] path = new int[length];
+    int i = meetIndex;
+    for (int node = meet; node != -1; node = forward.pred(node))
+      path[i--] = node;
+    i = meetIndex + 1;
+    if (meet != end)
+      for (int node = backward.pred(meet); node != -1; node = backward.pred(node))
+        path[i++] = node;
+    return path;
+  }
+
+  // lists the node data along a path of node ids
+  protected List<NodeType> namesAlong(int[] path) {
+    ArrayList<NodeType> data = new ArrayList<>(path.length);
+    for (int node : path)
+      data.add(names.get(node));
+    return data;
+  }
+
+  // builds the Route along a path of node ids, with the weight of each edge
+  protected Route<NodeType> routeAlong(int[] path) {
+    double[] legCosts = new double[path.length - 1];
+    for (int i = 1; i < path.length; i++)
+      legCosts[i - 1] = weights[edgeIndex(path[i - 1], path[i])];
+    return new Route<>(namesAlong(path), legCosts);
+  }
+
+  // adds up the cost of the path to end that passes through meet, in order
+  // from start to end so it matches what a forward search would compute
+  protected double costThrough(int meet, int end) {
+    double cost = SearchSpace.forward().dist(meet);
+    if (meet != end) {
+      SearchSpace backward = SearchSpace.backward();
+      for (int node = meet; node != end; node = backward.pred(node))
+        cost += weights[edgeIndex(node, backward.pred(node))];
+    }
+    return cost;
+  }
+
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    return shortestPathData(start, end, searchMode);
+  }
+
+  /**
+   * Returns the node data along the shortest path from start to end, found
+   * with the provided algorithm (or looked up, once all pairs or the tree
+   * cache are prepared).
+   *
+   * @throws NoSuchElementException if either node is not in this graph, or
+   *                                if there is no path from start to end
+   */
+  public List<NodeType> shortestPathData(NodeType start, NodeType end, SearchMode mode) {
+    int startId = idOf(start);
+    int endId = idOf(end);
+    AllPairsIndex table = allPairs;
+    if (table != null) {
+      clearSearchStatistics();
+      return namesAlong(table.path(startId, endId));
+    }
+    ShortestPathTreeCache cache = trees;
+    if (cache != null)
+      return namesAlong(treeFrom(startId, cache).path(endId));
+    return namesAlong(pathIdsThrough(route(startId, endId, mode), endId));
+  }
+
+  public double shortestPathCost(NodeType start, NodeType end) {
+    return shortestPathCost(start, end, searchMode);
+  }
+
+  /**
+   * Returns the cost of the shortest path from start to end, found with the
+   * provided algorithm (or looked up, once all pairs or the tree cache are
+   * prepared).
+   *
+   * @throws NoSuchElementException if either node is not in this graph, or
+   *                                if there is no path from start to end
+   */
+  public double shortestPathCost(NodeType start, NodeType end, SearchMode mode) {
+    int startId = idOf(start);
+    int endId = idOf(end);
+    AllPairsIndex table = allPairs;
+    if (table != null) {
+      clearSearchStatistics();
+      double cost = table.cost(startId, endId);
+      if (cost == Double.POSITIVE_INFINITY)
+        throw new NoSuchElementException("No path");
+      return cost;
+    }
+    ShortestPathTreeCache cache = trees;
+    if (cache != null) {
+      double cost = treeFrom(startId, cache).cost(endId);
+      if (cost == Double.POSITIVE_INFINITY)
+        throw new NoSuchElementException("No path");
+      return cost;
+    }
+    return costThrough(route(startId, endId, mode), endId);
+  }
+
+  public Route<NodeType> shortestRoute(NodeType start, NodeType end) {
+    return shortestRoute(start, end, searchMode);
+  }
+
+  /**
+   * Returns the shortest route from start to end, found with the provided
+   * algorithm (or looked up, once all pairs or the tree cache are prepared).
+   * The route's locations, leg costs and total cost all come from this one
+   * search.
+   *
+   * @throws NoSuchElementException if either node is not in this graph, or
+   *                                if there is no path from start to end
+   */
+  public Route<NodeType> shortestRoute(NodeType start, NodeType end, SearchMode mode) {
+    int startId = idOf(start);
+    int endId = idOf(end);
+    AllPairsIndex table = allPairs;
+    if (table != null) {
+      clearSearchStatistics();
+      return routeAlong(table.path(startId, endId));
+    }
+    ShortestPathTreeCache cache = trees;
+    if (cache != null)
+      return routeAlong(treeFrom(startId, cache).path(endId));
+    return routeAlong(pathIdsThrough(route(startId, endId, mode), endId));
+  }
+
+  /**
+   * Returns the cost of the shortest path from start to every node in this
+   * graph, computed with a single search (or copied from the all-pairs
+   * table or a cached tree, once those are prepared).
+   *
+   * @param start the node to measure costs from
+   * @return the costs indexed by node id, in the same order as getAllNodes(),
+   *         with infinity for nodes that cannot be reached from start
+   * @throws NoSuchElementException if start is not in this graph
+   */
+  public double[] shortestPathCostsFrom(NodeType start) {
+    int startId = idOf(start);
+    AllPairsIndex table = allPairs;
+    if (table != null)
+      return table.costsFrom(startId);
+    ShortestPathTreeCache cache = trees;
+    if (cache != null)
+      return treeFrom(startId, cache).costs();
+    SearchSpace space = sweep(startId, false);
+    double[] costs = new double[names.size()];
+    for (int node = 0; node < costs.length; node++)
+      costs[node] = space.dist(node);
+    return costs;
+  }
+
+  /**
+   * Returns the cost of the shortest path from each start to each end.  One
+   * search runs per start, and stops as soon as every end is settled, and
+   * the searches for different starts run in parallel on the common
+   * ForkJoinPool.  When the all-pairs table is prepared, the costs are
+   * copied from it instead.
+   *
+   * @param starts the nodes to measure costs from
+   * @param ends   the nodes to measure costs to
+   * @return costs[i][j] is the cost from starts.get(i) to ends.get(j), or
+   *         infinity when there is no such path
+   * @throws NoSuchElementException if any start or end is not in this graph
+   */
+  public double[][] shortestPathCostMatrix(List<NodeType> starts, List<NodeType> ends) {
+    int[] startIds = new int[starts.size()];
+    for (int i = 0; i < startIds.length; i++)
+      startIds[i] = idOf(starts.get(i));
+    int[] endIds = new int[ends.size()];
+    boolean[] isEnd = new boolean[names.size()];
+    int endCount = 0;
+    for (int j = 0; j < endIds.length; j++) {
+      endIds[j] = idOf(ends.get(j));
+      if (!isEnd[endIds[j]]) {
+        isEnd[endIds[j]] = true;
+        endCount++;
+      }
+    }
+
+    double[][] costs = new double[startIds.length][endIds.length];
+    AllPairsIndex table = allPairs;
+    int distinctEnds = endCount;
+    IntStream.range(0, startIds.length).parallel().forEach(i -> {
+      if (table != null) {
+        for (int j = 0; j < endIds.length; j++)
+          costs[i][j] = table.cost(startIds[i], endIds[j]);
+        return;
+      }
+      SearchSpace space = sweepTo(startIds[i], isEnd, distinctEnds);
+      for (int j = 0; j < endIds.length; j++)
+        costs[i][j] = space.dist(endIds[j]);
+    });
+    return costs;
+  }
+
+  /**
+   * Sets the statistics of the calling thread's last search back to zero, as
+   * when a query is answered from a table (which settles no nodes).
+   */
+  public static void clearSearchStatistics() {
+    SearchSpace.forward().clearStatistics();
+    SearchSpace.backward().clearStatistics();
+  }
+
+}
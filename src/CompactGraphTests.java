@@ -0,0 +1,225 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class CompactGraphTests {
+
+  // builds the small graph that is also used by the DijkstraGraph tests
+  private static DijkstraGraph<String, Double> smallGraph() {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    for (String node : List.of("D", "G", "H", "L", "F", "I", "E", "M", "B", "A"))
+      graph.insertNode(node);
+    graph.insertEdge("D", "G", 2.0);
+    graph.insertEdge("D", "F", 4.0);
+    graph.insertEdge("F", "G", 9.0);
+    graph.insertEdge("G", "H", 9.0);
+    graph.insertEdge("G", "L", 7.0);
+    graph.insertEdge("H", "L", 2.0);
+    graph.insertEdge("H", "I", 2.0);
+    graph.insertEdge("I", "H", 2.0);
+    graph.insertEdge("M", "E", 3.0);
+    graph.insertEdge("M", "I", 4.0);
+    graph.insertEdge("B", "M", 3.0);
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("A", "M", 5.0);
+    graph.insertEdge("M", "F", 4.0);
+    graph.insertEdge("G", "A", 4.0);
+    graph.insertEdge("D", "A", 7.0);
+    graph.insertEdge("A", "H", 7.0);
+    graph.insertEdge("H", "B", 6.0);
+    graph.insertEdge("I", "D", 1.0);
+    return graph;
+  }
+
+  // tests that a frozen graph has the same nodes, edges and shortest paths
+  @Test
+  public void testFreezeMatchesDijkstraGraph() {
+    DijkstraGraph<String, Double> graph = smallGraph();
+    CompactGraph<String> compact = CompactGraph.of(graph);
+
+    Assertions.assertEquals(graph.getNodeCount(), compact.getNodeCount());
+    Assertions.assertEquals(graph.getEdgeCount(), compact.getEdgeCount());
+    Assertions.assertEquals(9.0, compact.getEdge("F", "G"));
+    Assertions.assertFalse(compact.containsEdge("G", "F"));
+    for (String start : graph.getAllNodes())
+      for (String end : graph.getAllNodes()) {
+        try {
+          double expected = graph.shortestPathCost(start, end);
+          Assertions.assertEquals(expected, compact.shortestPathCost(start, end));
+          Assertions.assertEquals(graph.shortestPathData(start, end),
+                  compact.shortestPathData(start, end));
+        } catch (NoSuchElementException e) {
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> compact.shortestPathCost(start, end));
+        }
+      }
+  }
+
+  // tests that a frozen graph cannot be modified
+  @Test
+  public void testReadOnly() {
+    CompactGraph<String> compact = CompactGraph.of(smallGraph());
+    Assertions.assertThrows(UnsupportedOperationException.class,
+            () -> compact.insertNode("Z"));
+    Assertions.assertThrows(UnsupportedOperationException.class,
+            () -> compact.insertEdge("A", "D", 1.0));
+    Assertions.assertThrows(NoSuchElementException.class,
+            () -> compact.shortestPathData("A", "Z"));
+  }
+
+  // tests that the backend loads and searches the campus on a CompactGraph
+  @Test
+  public void testBackendOnCompactGraph() throws IOException {
+    Backend backend = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+    backend.loadGraphData("campus.dot");
+
+    String expected = "[Memorial Union, Radio Hall, Education Building, South Hall," +
+            " Law Building, X01, Luther Memorial Church, Noland Hall, Meiklejohn House," +
+            " Computer Sciences and Statistics, Union South]";
+    Assertions.assertEquals(expected,
+            backend.findLocationsOnShortestPath("Memorial Union", "Union South").toString());
+  }
+
+  // tests the reusable-heap search against Bellman-Ford on random graphs
+  @Test
+  public void testSearchMatchesBellmanFord() {
+    Random random = new Random(400);
+    for (int round = 0; round < 20; round++) {
+      int n = 2 + random.nextInt(40);
+      DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+      for (int i = 0; i < n; i++)
+        graph.insertNode(i);
+      for (int i = 0; i < n * 3; i++)
+        graph.insertEdge(random.nextInt(n), random.nextInt(n), 1.0 + random.nextInt(20));
+      CompactGraph<Integer> compact = CompactGraph.of(graph);
+
+      int start = random.nextInt(n);
+      double[] expected = new double[n];
+      Arrays.fill(expected, Double.POSITIVE_INFINITY);
+      expected[start] = 0;
+      for (int pass = 0; pass < n; pass++)
+        for (int u = 0; u < n; u++)
+          for (int i = compact.offsets[u]; i < compact.offsets[u + 1]; i++)
+            expected[compact.targets[i]] = Math.min(expected[compact.targets[i]],
+                    expected[u] + compact.weights[i]);
+
+      for (int end = 0; end < n; end++) {
+        if (expected[end] == Double.POSITIVE_INFINITY) {
+          int unreachable = end;
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> compact.shortestPathCost(compact.nodeAt(start), compact.nodeAt(unreachable)));
+        } else {
+          Assertions.assertEquals(expected[end],
+                  compact.shortestPathCost(compact.nodeAt(start), compact.nodeAt(end)));
+        }
+      }
+    }
+  }
+
+  // adds up the edge weights along path, from its start to its end
+  private static double costAlong(CompactGraph<String> graph, List<String> path) {
+    double cost = 0;
+    for (int i = 1; i < path.size(); i++)
+      cost += graph.getEdge(path.get(i - 1), path.get(i));
+    return cost;
+  }
+
+  // tests that bidirectional search finds paths of the same cost as
+  // Dijkstra's algorithm between every pair of campus locations.  Many
+  // campus routes tie (a walk past a building costs the same as the walk
+  // to it plus the walk onward), and rounding can make either one of those
+  // come out a little cheaper, so costs are compared with a tolerance
+  @Test
+  public void testBidirectionalMatchesDijkstra() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData("campus.dot");
+    CompactGraph<String> compact = graph.snapshot();
+
+    for (String start : compact.getAllNodes())
+      for (String end : compact.getAllNodes()) {
+        try {
+          double expected = compact.shortestPathCost(start, end, SearchMode.DIJKSTRA);
+          double actual = compact.shortestPathCost(start, end, SearchMode.BIDIRECTIONAL);
+          Assertions.assertEquals(expected, actual, 1e-9);
+          List<String> path = compact.shortestPathData(start, end, SearchMode.BIDIRECTIONAL);
+          Assertions.assertEquals(start, path.get(0));
+          Assertions.assertEquals(end, path.get(path.size() - 1));
+          Assertions.assertEquals(actual, costAlong(compact, path));
+        } catch (NoSuchElementException e) {
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> compact.shortestPathCost(start, end, SearchMode.BIDIRECTIONAL));
+        }
+      }
+
+    graph.setSearchMode(SearchMode.BIDIRECTIONAL);
+    Assertions.assertEquals(List.of("Memorial Union", "Science Hall"),
+            graph.shortestPathData("Memorial Union", "Science Hall"));
+  }
+
+  // tests that A* with landmarks finds paths of the same cost as Dijkstra's
+  // algorithm, while settling fewer nodes overall
+  @Test
+  public void testLandmarksMatchDijkstra() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData("campus.dot");
+    CompactGraph<String> compact = graph.snapshot();
+    Assertions.assertNotNull(compact.getLandmarks());
+
+    long dijkstraSettled = 0;
+    long landmarkSettled = 0;
+    for (String start : compact.getAllNodes())
+      for (String end : compact.getAllNodes()) {
+        try {
+          double expected = compact.shortestPathCost(start, end, SearchMode.DIJKSTRA);
+          dijkstraSettled += CompactGraph.getLastSettledCount();
+          double actual = compact.shortestPathCost(start, end, SearchMode.ALT);
+          landmarkSettled += CompactGraph.getLastSettledCount();
+          Assertions.assertEquals(expected, actual, 1e-9);
+          Assertions.assertEquals(actual, costAlong(compact,
+                  compact.shortestPathData(start, end, SearchMode.ALT)));
+        } catch (NoSuchElementException e) {
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> compact.shortestPathCost(start, end, SearchMode.ALT));
+        }
+      }
+    Assertions.assertTrue(landmarkSettled < dijkstraSettled / 2,
+            landmarkSettled + " settled with landmarks, " + dijkstraSettled + " without");
+  }
+
+  // tests that the all-pairs table answers with the same costs as searching,
+  // and that it is skipped when it does not fit in its memory budget
+  @Test
+  public void testAllPairsMatchesDijkstra() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData("campus.dot");
+    CompactGraph<String> compact = graph.snapshot();
+    Assertions.assertFalse(compact.prepareAllPairs(1000));
+    Assertions.assertNull(compact.getAllPairs());
+
+    DijkstraGraph<String, Double> indexed = new DijkstraGraph<>();
+    Backend backend = new Backend(indexed);
+    backend.setAllPairsMemoryBudget(AllPairsIndex.DEFAULT_MEMORY_BUDGET);
+    backend.loadGraphData("campus.dot");
+    Assertions.assertNotNull(indexed.snapshot().getAllPairs());
+
+    for (String start : compact.getAllNodes())
+      for (String end : compact.getAllNodes()) {
+        try {
+          double expected = compact.shortestPathCost(start, end, SearchMode.DIJKSTRA);
+          Assertions.assertEquals(expected, indexed.shortestPathCost(start, end));
+          Assertions.assertEquals(0, indexed.getLastSettledCount());
+          Assertions.assertEquals(expected,
+                  costAlong(compact, indexed.shortestPathData(start, end)), 1e-9);
+        } catch (NoSuchElementException e) {
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> indexed.shortestPathData(start, end));
+        }
+      }
+  }
+
+}
@@ -0,0 +1,585 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This ContractionHierarchy class is a graph that answers shortest path
+ * queries with Contraction Hierarchies instead of plain Dijkstra searches.
+ * Nodes and edges are added and removed as in any BaseGraph.  The first
+ * query after a change preprocesses the graph, which takes much longer than
+ * one search, so this pays off for large graphs that are queried many times
+ * (prepare can be called to do the preprocessing right after loading).
+ *
+ * Preprocessing contracts the nodes one at a time, least important first.
+ * Contracting a node removes it from the remaining graph, and adds a
+ * shortcut edge u->w for each pair of edges u->v->w through it unless a
+ * witness search finds another path from u to w that is no longer.  Each
+ * node's importance is mostly its edge difference (the shortcuts its
+ * contraction would add minus the edges it would remove), plus the number
+ * of its neighbors that are already contracted and how deep they were in
+ * the hierarchy, which spreads contraction evenly over the graph.
+ * Importances are updated lazily: a node is only contracted if its
+ * recomputed importance is still the lowest.
+ *
+ * A query runs two Dijkstra searches that only follow edges (and shortcuts)
+ * toward more important nodes: one forward from start, and one backward
+ * from end.  The shortest path passes through the node where the two
+ * searches meet with the lowest total cost, and its shortcuts are unpacked
+ * back into the original edges.  Both searches settle only a small part of
+ * the graph, since every shortest path climbs to its most important node
+ * and back down, and they skip nodes that a more important node reaches
+ * more cheaply (stall-on-demand).
+ */
+public class ContractionHierarchy<NodeType, EdgeType extends Number>
+        extends BaseGraph<NodeType, EdgeType>
+        implements GraphADT<NodeType, EdgeType> {
+
+  // witness searches give up after settling this many nodes, which can only
+  // add shortcuts that were not needed, never leave out needed ones
+  private static final int WITNESS_SETTLE_LIMIT = 128;
+  // the same limit while only counting shortcuts to rank nodes, which runs
+  // far more often; the counts come out nearly the same
+  private static final int SIMULATION_SETTLE_LIMIT = 16;
+
+  // a growable list of ints, for the edge lists of the graph being contracted
+  private static final class IntList {
+    int[] items = new int[4];
+    int size = 0;
+
+    void add(int item) {
+      if (size == items.length)
+        items = Arrays.copyOf(items, size * 2);
+      items[size++] = item;
+    }
+
+    int removeLast() {
+      return items[--size];
+    }
+
+    // removes item by moving the last item into its place
+    void remove(int item) {
+      for (int i = 0; i < size; i++)
+        if (items[i] == item) {
+          items[i] = items[--size];
+          return;
+        }
+    }
+  }
+
+  /**
+   * The result of preprocessing one version of the graph: the upward and
+   * downward graphs that queries search, and how to unpack each shortcut.
+   * It is never modified once built, so any number of threads may query it.
+   */
+  private static final class Hierarchy<NodeType> {
+    // node ids and data, and the original edges' weights
+    final CompactGraph<NodeType> base;
+
+    // every original edge and shortcut: edge e leads from from[e] to to[e],
+    // and when it is a shortcut, it stands for the edges first[e] and then
+    // second[e] (both are -1 for an original edge)
+    final int[] from;
+    final int[] to;
+    final double[] weight;
+    final int[] first;
+    final int[] second;
+    final int shortcutCount;
+
+    // CSR rows of the edges leaving each node toward more important nodes
+    final int[] upOffsets;
+    final int[] upEdges;
+    // CSR rows of the edges entering each node from more important nodes
+    final int[] downOffsets;
+    final int[] downEdges;
+
+    Hierarchy(CompactGraph<NodeType> base, Contractor contractor, int[] rank) {
+      this.base = base;
+      int edgeCount = contractor.edgeCount;
+      from = Arrays.copyOf(contractor.from, edgeCount);
+      to = Arrays.copyOf(contractor.to, edgeCount);
+      weight = Arrays.copyOf(contractor.weight, edgeCount);
+      first = Arrays.copyOf(contractor.first, edgeCount);
+      second = Arrays.copyOf(contractor.second, edgeCount);
+      shortcutCount = edgeCount - contractor.originalCount;
+
+      // each edge is searched from its less important end: forward when it
+      // leads upward, backward when it leads downward
+      int n = base.getNodeCount();
+      upOffsets = new int[n + 1];
+      downOffsets = new int[n + 1];
+      for (int e = 0; e < edgeCount; e++) {
+        if (rank[from[e]] < rank[to[e]])
+          upOffsets[from[e] + 1]++;
+        else
+          downOffsets[to[e] + 1]++;
+      }
+      for (int i = 0; i < n; i++) {
+        upOffsets[i + 1] += upOffsets[i];
+        downOffsets[i + 1] += downOffsets[i];
+      }
+      upEdges = new int[upOffsets[n]];
+      downEdges = new int[downOffsets[n]];
+      int[] nextUp = Arrays.copyOf(upOffsets, n);
+      int[] nextDown = Arrays.copyOf(downOffsets, n);
+      for (int e = 0; e < edgeCount; e++) {
+        if (rank[from[e]] < rank[to[e]])
+          upEdges[nextUp[from[e]]++] = e;
+        else
+          downEdges[nextDown[to[e]]++] = e;
+      }
+    }
+
+    /**
+     * Finds the shortest path from start to end with an upward search from
+     * each end, in this thread's forward and backward SearchSpaces.  Each
+     * SearchSpace records the edge (not the node) that reached each node in
+     * its predecessor array, so shortcuts can be unpacked afterward.
+     *
+     * @return the original edges along the path, in order from start to end
+     * @throws NoSuchElementException when there is no path from start to end
+     */
+    int[] pathEdges(int start, int end) {
+      int n = base.getNodeCount();
+      SearchSpace forward = SearchSpace.forThread(n);
+      SearchSpace backward = SearchSpace.backwardForThread(n);
+      forward.relax(start, 0, -1);
+      backward.relax(end, 0, -1);
+      double best = Double.POSITIVE_INFINITY;
+      int meet = -1;
+
+      // unlike a plain bidirectional search, each side has to keep going
+      // until its own queue reaches the best cost, since the two searches
+      // can only meet at the most important node of the path
+      while (true) {
+        boolean forwardActive = !forward.queue.isEmpty() && forward.queue.peekKey() < best;
+        boolean backwardActive = !backward.queue.isEmpty() && backward.queue.peekKey() < best;
+        if (!forwardActive && !backwardActive)
+          break;
+        boolean isForward = forwardActive
+                && (!backwardActive || forward.queue.peekKey() <= backward.queue.peekKey());
+        SearchSpace space = isForward ? forward : backward;
+        SearchSpace other = isForward ? backward : forward;
+        int[] offsets = isForward ? upOffsets : downOffsets;
+        int[] edges = isForward ? upEdges : downEdges;
+        int[] ends = isForward ? to : from;
+
+        int current = space.settleNext();
+        double cost = space.dist[current];
+        if (other.isSettled(current) && cost + other.dist(current) < best) {
+          best = cost + other.dist(current);
+          meet = current;
+        }
+        if (isStalled(space, current, cost, isForward))
+          continue;
+        for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+          int e = edges[i];
+          if (!space.isSettled(ends[e]))
+            space.relaxEdge(ends[e], cost + weight[e], e, current);
+        }
+      }
+      if (meet == -1)
+        throw new NoSuchElementException("No path");
+
+      // the forward half is found from meet back to start, so its edges are
+      // put in order before they are unpacked
+      int forwardCount = 0;
+      for (int e = forward.pred(meet); e != -1; e = forward.pred(from[e]))
+        forwardCount++;
+      int[] forwardEdges = new int[forwardCount];
+      for (int e = forward.pred(meet), i = forwardCount - 1; e != -1; e = forward.pred(from[e]))
+        forwardEdges[i--] = e;
+      IntList path = new IntList();
+      IntList stack = new IntList();
+      for (int e : forwardEdges)
+        unpack(e, path, stack);
+      for (int e = backward.pred(meet); e != -1; e = backward.pred(to[e]))
+        unpack(e, path, stack);
+      return Arrays.copyOf(path.items, path.size);
+    }
+
+    /**
+     * Stall-on-demand: checks whether a more important node that this search
+     * already reached has a cheaper path into node (through an edge that
+     * this search does not follow, since it leads downward).  Then node's
+     * cost is not its shortest path cost, so following its edges upward
+     * cannot lead to the shortest path, and node can be skipped.
+     */
+    private boolean isStalled(SearchSpace space, int node, double cost, boolean isForward) {
+      int[] offsets = isForward ? downOffsets : upOffsets;
+      int[] edges = isForward ? downEdges : upEdges;
+      int[] ends = isForward ? from : to;
+      for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+        int e = edges[i];
+        if (space.dist(ends[e]) + weight[e] < cost)
+          return true;
+      }
+      return false;
+    }
+
+    // appends the original edges that edge stands for to path, in order
+    private void unpack(int edge, IntList path, IntList stack) {
+      stack.add(edge);
+      while (stack.size > 0) {
+        int e = stack.removeLast();
+        if (first[e] == -1) {
+          path.add(e);
+        } else {
+          stack.add(second[e]);
+          stack.add(first[e]);
+        }
+      }
+    }
+
+    // lists the node ids along a path of original edges from start
+    int[] nodesAlong(int start, int[] edges) {
+      int[] nodes = new int[edges.length + 1];
+      nodes[0] = start;
+      for (int i = 0; i < edges.length; i++)
+        nodes[i + 1] = to[edges[i]];
+      return nodes;
+    }
+  }
+
+  /**
+   * The graph while it is being contracted, with every original edge and
+   * every shortcut added so far, and the list of edges leaving and entering
+   * each node.  A contracted node's edges are removed from its neighbors'
+   * lists, so those only hold edges of the remaining graph.
+   */
+  private static final class Contractor {
+    final int nodeCount;
+    final int originalCount;
+    int edgeCount = 0;
+    int[] from;
+    int[] to;
+    double[] weight;
+    int[] first;
+    int[] second;
+
+    final IntList[] out;
+    final IntList[] in;
+    final int[] contractedNeighbors;
+    // one more than the deepest contracted neighbor, so nodes that would
+    // make shortcuts of shortcuts of shortcuts are contracted later
+    final int[] depth;
+    final SearchSpace witness;
+    // nodes stamped with the current witness search are ones it looks for
+    final int[] targets;
+    int targetStamp = 0;
+
+    Contractor(CompactGraph<?> base) {
+      nodeCount = base.getNodeCount();
+      int capacity = Math.max(16, base.getEdgeCount() * 2);
+      from = new int[capacity];
+      to = new int[capacity];
+      weight = new double[capacity];
+      first = new int[capacity];
+      second = new int[capacity];
+      out = new IntList[nodeCount];
+      in = new IntList[nodeCount];
+      for (int node = 0; node < nodeCount; node++) {
+        out[node] = new IntList();
+        in[node] = new IntList();
+      }
+      contractedNeighbors = new int[nodeCount];
+      depth = new int[nodeCount];
+      witness = new SearchSpace(nodeCount);
+      targets = new int[nodeCount];
+
+      // edges from a node to itself are never on a shortest path
+      for (int node = 0; node < nodeCount; node++)
+        for (int i = base.offsets[node]; i < base.offsets[node + 1]; i++)
+          if (base.targets[i] != node)
+            addEdge(node, base.targets[i], base.weights[i], -1, -1);
+      originalCount = edgeCount;
+    }
+
+    private void addEdge(int u, int w, double cost, int firstEdge, int secondEdge) {
+      if (edgeCount == from.length) {
+        int capacity = edgeCount * 2;
+        from = Arrays.copyOf(from, capacity);
+        to = Arrays.copyOf(to, capacity);
+        weight = Arrays.copyOf(weight, capacity);
+        first = Arrays.copyOf(first, capacity);
+        second = Arrays.copyOf(second, capacity);
+      }
+      from[edgeCount] = u;
+      to[edgeCount] = w;
+      weight[edgeCount] = cost;
+      first[edgeCount] = firstEdge;
+      second[edgeCount] = secondEdge;
+      out[u].add(edgeCount);
+      in[w].add(edgeCount);
+      edgeCount++;
+    }
+
+    // adds the shortcut u->w, or lowers the weight of the edge already
+    // there, so that there is never more than one edge from u to w
+    private void addShortcut(int u, int w, double cost, int firstEdge, int secondEdge) {
+      for (int i = 0; i < out[u].size; i++) {
+        int e = out[u].items[i];
+        if (to[e] == w) {
+          if (cost < weight[e]) {
+            weight[e] = cost;
+            first[e] = firstEdge;
+            second[e] = secondEdge;
+          }
+          return;
+        }
+      }
+      addEdge(u, w, cost, firstEdge, secondEdge);
+    }
+
+    // searches from u over the remaining graph, except skip, until each of
+    // the stamped targets is settled, the next node would cost more than
+    // maxCost, or settleLimit nodes are settled
+    private void witnessSearch(int u, int skip, double maxCost, int targetCount,
+                               int settleLimit) {
+      witness.reset(nodeCount);
+      witness.relax(u, 0, -1);
+      int settled = 0;
+      while (targetCount > 0 && !witness.queue.isEmpty() && witness.queue.peekKey() <= maxCost
+              && settled++ < settleLimit) {
+        int current = witness.settleNext();
+        if (targets[current] == targetStamp)
+          targetCount--;
+        double cost = witness.dist[current];
+        IntList edges = out[current];
+        for (int i = 0; i < edges.size; i++) {
+          int e = edges.items[i];
+          int next = to[e];
+          if (next != skip && !witness.isSettled(next))
+            witness.relax(next, cost + weight[e], current);
+        }
+      }
+    }
+
+    /**
+     * Adds the shortcuts needed to remove node from the remaining graph, or
+     * only counts them when simulate is true.
+     *
+     * @return the number of shortcuts added (or that would be added)
+     */
+    private int contract(int node, boolean simulate) {
+      double maxOut = 0;
+      for (int i = 0; i < out[node].size; i++)
+        maxOut = Math.max(maxOut, weight[out[node].items[i]]);
+
+      int shortcuts = 0;
+      for (int i = 0; i < in[node].size; i++) {
+        int e1 = in[node].items[i];
+        int u = from[e1];
+        targetStamp++;
+        int targetCount = 0;
+        for (int j = 0; j < out[node].size; j++) {
+          int w = to[out[node].items[j]];
+          if (w != u) {
+            targets[w] = targetStamp;
+            targetCount++;
+          }
+        }
+        witnessSearch(u, node, weight[e1] + maxOut, targetCount,
+                simulate ? SIMULATION_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+        for (int j = 0; j < out[node].size; j++) {
+          int e2 = out[node].items[j];
+          int w = to[e2];
+          if (w == u)
+            continue;
+          double via = weight[e1] + weight[e2];
+          // a shortcut is needed unless there is a witness path that is
+          // no longer than the path through node
+          if (witness.dist(w) > via) {
+            shortcuts++;
+            if (!simulate)
+              addShortcut(u, w, via, e1, e2);
+          }
+        }
+      }
+      return shortcuts;
+    }
+
+    // removes a contracted node's edges from its neighbors' edge lists
+    private void detach(int node) {
+      for (int i = 0; i < in[node].size; i++)
+        out[from[in[node].items[i]]].remove(in[node].items[i]);
+      for (int i = 0; i < out[node].size; i++)
+        in[to[out[node].items[i]]].remove(out[node].items[i]);
+    }
+
+    // the importance of node: twice its edge difference, plus its count of
+    // contracted neighbors and its depth
+    private double priority(int node) {
+      int removed = out[node].size + in[node].size;
+      return 2 * (contract(node, true) - removed) + contractedNeighbors[node] + depth[node];
+    }
+
+    /**
+     * Contracts every node, least important first.
+     *
+     * @return the rank of each node, from 0 for the first node contracted
+     */
+    int[] contractAll() {
+      IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+      for (int node = 0; node < nodeCount; node++)
+        queue.insertOrDecrease(node, priority(node));
+
+      int[] rank = new int[nodeCount];
+      // stamps each neighbor with the contracted node, so it is updated once
+      int[] updated = new int[nodeCount];
+      Arrays.fill(updated, -1);
+      int nextRank = 0;
+      while (!queue.isEmpty()) {
+        int node = queue.poll();
+        // priorities only ever go stale by being too low (the heap can only
+        // lower them), so a node whose true priority is no longer the
+        // lowest is put back
+        double priority = priority(node);
+        if (!queue.isEmpty() && priority > queue.peekKey()) {
+          queue.insertOrDecrease(node, priority);
+          continue;
+        }
+        contract(node, false);
+        detach(node);
+        rank[node] = nextRank++;
+
+        for (int i = 0; i < out[node].size + in[node].size; i++) {
+          int neighbor = i < out[node].size ? to[out[node].items[i]]
+                  : from[in[node].items[i - out[node].size]];
+          if (updated[neighbor] == node)
+            continue;
+          updated[neighbor] = node;
+          contractedNeighbors[neighbor]++;
+          depth[neighbor] = Math.max(depth[neighbor], depth[node] + 1);
+          queue.insertOrDecrease(neighbor, priority(neighbor));
+        }
+      }
+      return rank;
+    }
+  }
+
+  // The hierarchy built from the current nodes and edges.  It is rebuilt by
+  // the first query after any change to this graph's nodes or edges.
+  private volatile Hierarchy<NodeType> hierarchy = null;
+  private int hierarchyModCount = -1;
+
+  /**
+   * Constructor that sets the map that the graph uses.
+   */
+  public ContractionHierarchy() {
+    super(new OpenHashMap<>());
+  }
+
+  /**
+   * Preprocesses the graph now, instead of in the first query after it was
+   * last changed.
+   */
+  public void prepare() {
+    hierarchy();
+  }
+
+  // returns the hierarchy for the current nodes and edges, building it first
+  // when the graph has changed since it was last built; every query waits
+  // for the rebuild (seconds on large maps), so this graph is not meant to
+  // change while it is being queried
+  private Hierarchy<NodeType> hierarchy() {
+    Hierarchy<NodeType> current = hierarchy;
+    if (current == null || hierarchyModCount != modCount) {
+      synchronized (this) {
+        current = hierarchy;
+        if (current == null || hierarchyModCount != modCount) {
+          CompactGraph<NodeType> base = CompactGraph.of(this);
+          Contractor contractor = new Contractor(base);
+          current = new Hierarchy<>(base, contractor, contractor.contractAll());
+          // published through the volatile write below
+          hierarchyModCount = modCount;
+          hierarchy = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the number of shortcuts that preprocessing added to the graph.
+   *
+   * @return the number of shortcuts in the current hierarchy
+   */
+  public int getShortcutCount() {
+    return hierarchy().shortcutCount;
+  }
+
+  /**
+   * Returns the number of nodes settled by the last query made from the
+   * calling thread, counting both the forward and backward searches.
+   *
+   * @return the number of nodes settled by that query
+   */
+  public int getLastSettledCount() {
+    return CompactGraph.getLastSettledCount();
+  }
+
+  // finds the original edges along the shortest path from start to end
+  private int[] pathEdges(Hierarchy<NodeType> current, NodeType start, NodeType end) {
+    if (start == null || end == null)
+      throw new NoSuchElementException("Start or end node does not exist");
+    return current.pathEdges(current.base.idOf(start), current.base.idOf(end));
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from
+   * the node with the provided start value through the node with the
+   * provided end value, with every shortcut unpacked.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return list of data items from nodes along this shortest path
+   * @throws NoSuchElementException if either node is not in this graph, or
+   *                                if there is no path from start to end
+   */
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    Hierarchy<NodeType> current = hierarchy();
+    int[] edges = pathEdges(current, start, end);
+    return current.base.namesAlong(current.nodesAlong(current.base.idOf(start), edges));
+  }
+
+  /**
+   * Returns the cost of the shortest path from start to end.  The weights of
+   * the original edges along the path are added in order from start to end,
+   * the same way a Dijkstra search adds them up.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException if either node is not in this graph, or
+   *                                if there is no path from start to end
+   */
+  public double shortestPathCost(NodeType start, NodeType end) {
+    Hierarchy<NodeType> current = hierarchy();
+    double cost = 0;
+    for (int e : pathEdges(current, start, end))
+      cost += current.weight[e];
+    return cost;
+  }
+
+  /**
+   * Returns the shortest route from start to end: the data along the path,
+   * the weight of each original edge on it, and the total cost, all from
+   * one query.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the route along the shortest path between these nodes
+   * @throws NoSuchElementException if either node is not in this graph, or
+   *                                if there is no path from start to end
+   */
+  public Route<NodeType> shortestRoute(NodeType start, NodeType end) {
+    Hierarchy<NodeType> current = hierarchy();
+    int[] edges = pathEdges(current, start, end);
+    double[] legCosts = new double[edges.length];
+    for (int i = 0; i < edges.length; i++)
+      legCosts[i] = current.weight[edges[i]];
+    return new Route<>(current.base.namesAlong(current.nodesAlong(current.base.idOf(start), edges)),
+            legCosts);
+  }
+
+}
@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class ContractionHierarchyTests {
+
+  // checks that path is made of edges of graph, and returns its cost added
+  // up from start to end
+  private static double costAlong(GraphADT<String, Double> graph, List<String> path) {
+    double cost = 0;
+    for (int i = 1; i < path.size(); i++) {
+      Assertions.assertTrue(graph.containsEdge(path.get(i - 1), path.get(i)));
+      cost += graph.getEdge(path.get(i - 1), path.get(i));
+    }
+    return cost;
+  }
+
+  // compares every pair of nodes in the two graphs, which must hold the same
+  // nodes and edges; with delta 0 the costs must match exactly
+  private static void assertSameShortestPaths(DijkstraGraph<String, Double> dijkstra,
+                                              ContractionHierarchy<String, Double> hierarchy,
+                                              double delta) {
+    for (String start : dijkstra.getAllNodes())
+      for (String end : dijkstra.getAllNodes()) {
+        double expected;
+        try {
+          expected = dijkstra.shortestPathCost(start, end);
+        } catch (NoSuchElementException e) {
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> hierarchy.shortestPathCost(start, end));
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> hierarchy.shortestPathData(start, end));
+          continue;
+        }
+        Assertions.assertEquals(expected, hierarchy.shortestPathCost(start, end), delta);
+        List<String> path = hierarchy.shortestPathData(start, end);
+        Assertions.assertEquals(start, path.get(0));
+        Assertions.assertEquals(end, path.get(path.size() - 1));
+        Assertions.assertEquals(expected, costAlong(dijkstra, path), delta);
+        Route<String> route = hierarchy.shortestRoute(start, end);
+        Assertions.assertEquals(path, route.getLocations());
+        Assertions.assertEquals(hierarchy.shortestPathCost(start, end), route.getTotalCost());
+      }
+  }
+
+  // tests exact equivalence on random graphs with whole number weights, where
+  // every way of adding up a path's weights gives the same cost
+  @Test
+  public void testMatchesDijkstraOnRandomGraphs() {
+    Random random = new Random(400);
+    for (int round = 0; round < 20; round++) {
+      DijkstraGraph<String, Double> dijkstra = new DijkstraGraph<>();
+      ContractionHierarchy<String, Double> hierarchy = new ContractionHierarchy<>();
+      int nodes = 5 + random.nextInt(60);
+      for (int i = 0; i < nodes; i++) {
+        dijkstra.insertNode("n" + i);
+        hierarchy.insertNode("n" + i);
+      }
+      int edges = nodes * (1 + random.nextInt(4));
+      for (int i = 0; i < edges; i++) {
+        String pred = "n" + random.nextInt(nodes);
+        String succ = "n" + random.nextInt(nodes);
+        double weight = random.nextInt(20);
+        dijkstra.insertEdge(pred, succ, weight);
+        hierarchy.insertEdge(pred, succ, weight);
+      }
+      assertSameShortestPaths(dijkstra, hierarchy, 0);
+    }
+  }
+
+  // tests campus.dot through a Backend, where paths of equal cost may add up
+  // to slightly different doubles
+  @Test
+  public void testMatchesDijkstraOnCampus() throws IOException {
+    DijkstraGraph<String, Double> dijkstra = new DijkstraGraph<>();
+    Backend dijkstraBackend = new Backend(dijkstra);
+    dijkstraBackend.loadGraphData("campus.dot");
+    ContractionHierarchy<String, Double> hierarchy = new ContractionHierarchy<>();
+    Backend hierarchyBackend = new Backend(hierarchy);
+    hierarchyBackend.loadGraphData("campus.dot");
+
+    Assertions.assertEquals(dijkstra.getEdgeCount(), hierarchy.getEdgeCount());
+    Assertions.assertTrue(hierarchy.getShortcutCount() > 0);
+    assertSameShortestPaths(dijkstra, hierarchy, 1e-9);
+
+    // queries settle only a small part of the graph
+    hierarchy.shortestPathCost("Memorial Union", "Union South");
+    Assertions.assertTrue(hierarchy.getLastSettledCount() < hierarchy.getNodeCount() / 2);
+
+    List<String> starts = List.of("Memorial Union", "Union South", "Grainger Hall");
+    Assertions.assertEquals(dijkstraBackend.getClosestDestinationFromAll(starts),
+            hierarchyBackend.getClosestDestinationFromAll(starts));
+    Assertions.assertEquals(
+            dijkstraBackend.findShortestRoute("Memorial Union", "Union South").getTotalCost(),
+            hierarchyBackend.findShortestRoute("Memorial Union", "Union South").getTotalCost(),
+            1e-9);
+  }
+
+  // tests that changing the graph rebuilds the hierarchy, and the errors
+  // for missing nodes and paths
+  @Test
+  public void testChangesAndErrors() {
+    ContractionHierarchy<String, Double> hierarchy = new ContractionHierarchy<>();
+    for (String node : List.of("A", "B", "C", "D"))
+      hierarchy.insertNode(node);
+    hierarchy.insertEdge("A", "B", 1.0);
+    hierarchy.insertEdge("B", "C", 1.0);
+    hierarchy.insertEdge("C", "D", 1.0);
+    hierarchy.insertEdge("A", "D", 5.0);
+    Assertions.assertEquals(List.of("A", "B", "C", "D"), hierarchy.shortestPathData("A", "D"));
+    Assertions.assertEquals(List.of("B"), hierarchy.shortestPathData("B", "B"));
+    Assertions.assertEquals(0.0, hierarchy.shortestPathCost("B", "B"));
+
+    hierarchy.insertEdge("A", "D", 2.0);
+    Assertions.assertEquals(List.of("A", "D"), hierarchy.shortestPathData("A", "D"));
+    hierarchy.removeEdge("A", "D");
+    hierarchy.removeNode("C");
+    Assertions.assertThrows(NoSuchElementException.class,
+            () -> hierarchy.shortestPathData("A", "D"));
+    Assertions.assertThrows(NoSuchElementException.class,
+            () -> hierarchy.shortestPathCost("A", "C"));
+    Assertions.assertThrows(NoSuchElementException.class,
+            () -> hierarchy.shortestPathCost(null, "A"));
+  }
+
+}
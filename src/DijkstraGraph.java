@@ -55,11 +55,253 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
     }
   }
 
+  // Read-only CSR copy of this graph that searches run on.  It is rebuilt
+  // by the first search after any change to this graph's nodes or edges.
+  private volatile CompactGraph<NodeType> snapshot = null;
+  private int snapshotModCount = -1;
+
+  // edge weight updates made since the snapshot was built, which the next
+  // snapshot applies by repairing the current one instead of rebuilding it
+  private final List<WeightChange<NodeType>> pendingWeights = new ArrayList<>();
+  // beyond this many updates, building a new snapshot is cheaper
+  private static final int MAX_PENDING_WEIGHTS = 64;
+
+  // one call to insertEdge that changed the weight of an existing edge
+  private static class WeightChange<NodeType> {
+    final NodeType pred;
+    final NodeType succ;
+    final double weight;
+
+    WeightChange(NodeType pred, NodeType succ, double weight) {
+      this.pred = pred;
+      this.succ = succ;
+      this.weight = weight;
+    }
+  }
+
+  // the algorithm this graph's shortest path methods use
+  private volatile SearchMode searchMode = SearchMode.DIJKSTRA;
+  // number of landmarks to prepare on each new snapshot, for the ALT mode
+  private volatile int landmarkCount = 0;
+  // memory budget for the all-pairs table of each new snapshot, or 0 for none
+  private volatile long allPairsBudget = 0;
+  // memory budget for the tree cache of each new snapshot, or 0 for none
+  private volatile long treeCacheBudget = 0;
+  // told about each step of this graph's searches
+  private volatile SearchObserver searchObserver = SearchObserver.NONE;
+
   /**
    * Constructor that sets the map that the graph uses.
    */
   public DijkstraGraph() {
-    super(new HashtableMap<>());
+    super(new OpenHashMap<>());
+  }
+
+  /**
+   * Selects the algorithm that shortestPathData and shortestPathCost use on
+   * this graph.  Every mode finds paths of the same cost, so this only
+   * changes how much of the graph each search has to explore.
+   *
+   * @param searchMode the algorithm to use
+   * @throws NullPointerException if searchMode is null
+   */
+  public void setSearchMode(SearchMode searchMode) {
+    if (searchMode == null)
+      throw new NullPointerException("searchMode cannot be null");
+    this.searchMode = searchMode;
+  }
+
+  public SearchMode getSearchMode() {
+    return searchMode;
+  }
+
+  /**
+   * Sets the observer that is told about each step of the searches run by
+   * shortestPathData, shortestRoute, shortestPathCost, shortestPathCostsFrom
+   * and shortestPathTree, with nodes given by their ids in snapshot().  The
+   * observer is called on the thread that runs each search, so an observer
+   * that keeps state should only be used by one thread at a time.  Queries
+   * answered from a table or a cached tree do not search, and the parallel
+   * searches of shortestPathCostMatrix are not observed.
+   *
+   * @param observer the observer, or SearchObserver.NONE to stop observing
+   * @throws NullPointerException if observer is null
+   */
+  public void setSearchObserver(SearchObserver observer) {
+    if (observer == null)
+      throw new NullPointerException("observer cannot be null, use SearchObserver.NONE");
+    this.searchObserver = observer;
+  }
+
+  public SearchObserver getSearchObserver() {
+    return searchObserver;
+  }
+
+  // starts observing the calling thread's searches with this graph's
+  // observer, returning the one to restore afterwards, or null when this
+  // graph has no observer (so nothing needs to be set or restored)
+  private SearchObserver startObserving() {
+    SearchObserver observer = searchObserver;
+    return observer == SearchObserver.NONE ? null : SearchSpace.observe(observer);
+  }
+
+  private static void stopObserving(SearchObserver previous) {
+    if (previous != null)
+      SearchSpace.observe(previous);
+  }
+
+  /**
+   * Chooses landmarks and precomputes the distance tables that the ALT
+   * search mode uses.  The tables are kept up to date: when this graph is
+   * modified, they are repaired (for edge weight updates) or rebuilt along
+   * with the next snapshot.
+   *
+   * @param count the number of landmarks to choose, or 0 to stop keeping
+   *              landmark tables
+   */
+  public void prepareLandmarks(int count) {
+    landmarkCount = count;
+    snapshot().prepareLandmarks(count);
+  }
+
+  /**
+   * Precomputes the shortest paths between all pairs of nodes, so that
+   * queries are answered from a table instead of by searching.  The table
+   * is repaired (for edge weight updates) or rebuilt along with the next
+   * snapshot after this graph is modified.
+   * When the table for this graph would take more than memoryBudget bytes,
+   * it is not built and queries keep searching.
+   *
+   * @param memoryBudget the most bytes the table may take, or 0 to stop
+   *                     keeping a table
+   * @return true if the table was built, false otherwise
+   */
+  public boolean prepareAllPairs(long memoryBudget) {
+    allPairsBudget = memoryBudget;
+    return snapshot().prepareAllPairs(memoryBudget) && memoryBudget > 0;
+  }
+
+  /**
+   * Starts caching the shortest path tree of each source that queries start
+   * from, so repeated queries from the same origin are answered by walking
+   * the tree instead of searching.  The trees belong to the current
+   * snapshot: when only edge weights change, the next snapshot gets the
+   * same trees repaired for those changes, and after any other change it
+   * gets a new, empty cache with the same budget.
+   *
+   * @param memoryBudget the most bytes the cached trees may take, or 0 to
+   *                     stop caching trees
+   * @return true if the cache was created, false otherwise
+   */
+  public boolean prepareTreeCache(long memoryBudget) {
+    treeCacheBudget = memoryBudget;
+    return snapshot().prepareTreeCache(memoryBudget);
+  }
+
+  /**
+   * Returns the tree of shortest paths from source to every node of the
+   * current snapshot, from the tree cache when it holds one.  The tree is
+   * indexed by the node ids of snapshot().
+   *
+   * @param source the data item in the node to build the tree from
+   * @return the tree rooted at source
+   * @throws NoSuchElementException if source is not in this graph
+   */
+  public ShortestPathTree shortestPathTree(NodeType source) {
+    CompactGraph<NodeType> graph = snapshot();
+    SearchObserver previous = startObserving();
+    try {
+      return graph.shortestPathTree(source);
+    } finally {
+      stopObserving(previous);
+    }
+  }
+
+  /**
+   * Returns the number of nodes settled by the last shortestPathData or
+   * shortestPathCost call made from the calling thread.
+   *
+   * @return the number of nodes settled by that search
+   */
+  public int getLastSettledCount() {
+    return CompactGraph.getLastSettledCount();
+  }
+
+  /**
+   * Returns the largest number of nodes queued at once by the last
+   * shortestPathData or shortestPathCost call made from the calling thread.
+   *
+   * @return the largest queue size of that search
+   */
+  public int getLastMaxQueueSize() {
+    return CompactGraph.getLastMaxQueueSize();
+  }
+
+  /**
+   * Returns a read-only CompactGraph with the current nodes and edges of this
+   * graph.  The same snapshot is returned until this graph is modified.
+   * Searches on a snapshot use primitive arrays and allocate no memory
+   * beyond their results, so they are much faster than walking the Node
+   * and Edge objects of this graph.
+   *
+   * When every change since the last snapshot was an update to the weight
+   * of an existing edge, the new snapshot is made from the last one with
+   * CompactGraph.withEdgeWeight, which repairs its landmark tables,
+   * all-pairs table and cached trees instead of building them again.
+   *
+   * @return an up to date snapshot of this graph
+   */
+  public CompactGraph<NodeType> snapshot() {
+    CompactGraph<NodeType> current = snapshot;
+    if (current == null || snapshotModCount != modCount) {
+      synchronized (this) {
+        current = snapshot;
+        if (current == null || snapshotModCount != modCount) {
+          if (current != null && pendingWeights.size() == modCount - snapshotModCount) {
+            for (WeightChange<NodeType> change : pendingWeights)
+              current = current.withEdgeWeight(change.pred, change.succ, change.weight);
+          } else {
+            current = CompactGraph.of(this);
+            if (landmarkCount > 0)
+              current.prepareLandmarks(landmarkCount);
+            if (allPairsBudget > 0)
+              current.prepareAllPairs(allPairsBudget);
+            if (treeCacheBudget > 0)
+              current.prepareTreeCache(treeCacheBudget);
+          }
+          pendingWeights.clear();
+          // published through the volatile write below
+          snapshotModCount = modCount;
+          snapshot = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Inserts a new edge, or updates the weight of an existing one.  Weight
+   * updates are remembered so that the next snapshot can be repaired for
+   * them instead of being rebuilt.
+   *
+   * @param pred   the data item in the edge's predecessor node
+   * @param succ   the data item in the edge's successor node
+   * @param weight the non-negative weight of the edge
+   * @return true if the edge was inserted or updated, false if pred or succ
+   *         is not in this graph
+   */
+  @Override
+  public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
+    boolean existed = containsEdge(pred, succ);
+    if (!super.insertEdge(pred, succ, weight))
+      return false;
+    if (existed) {
+      synchronized (this) {
+        if (snapshot != null && pendingWeights.size() < MAX_PENDING_WEIGHTS)
+          pendingWeights.add(new WeightChange<>(pred, succ, weight.doubleValue()));
+      }
+    }
+    return true;
   }
 
   /**
@@ -87,34 +329,17 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
       throw new NoSuchElementException("Node not found in the graph");
     }
 
-    PriorityQueue<SearchNode> queue = new PriorityQueue<>();
-    MapADT<NodeType, Double> visit = new HashtableMap<>();
-
-    Node startNode = this.nodes.get(start);
-    // priority queue list
-    queue.add(new SearchNode(startNode, 0, null));
-
-    while (!queue.isEmpty()) {
-      SearchNode current = queue.poll();
-      if (current.node.data.equals(end)) {
-        return current;
-      }
-      // checking if new path has lower cost
-      if (visit.containsKey(current.node.data) && visit.get(current.node.data) <= current.cost) {
-        continue;
-      }
-      visit.put(current.node.data, current.cost);
-
-      for (Edge edge : current.node.edgesLeaving) {
-        double newCost = current.cost + edge.data.doubleValue();
-        Node successor = edge.successor;
-
-        if (!visit.containsKey(successor.data) || visit.get(successor.data) > newCost) {
-          queue.add(new SearchNode(successor, newCost, current));
-        }
-      }
+    // search the snapshot, then link a SearchNode to each node on the path
+    List<NodeType> path = shortestPathData(start, end);
+    CompactGraph<NodeType> graph = snapshot();
+    SearchNode current = null;
+    double cost = 0;
+    for (NodeType data : path) {
+      if (current != null)
+        cost += graph.getEdge(current.node.data, data);
+      current = new SearchNode(this.nodes.get(data), cost, current);
     }
-    throw new NoSuchElementException("No path");
+    return current;
   }
 
   /**
@@ -130,16 +355,65 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
    * @return list of data item from node along this shortest path
    */
   public List<NodeType> shortestPathData(NodeType start, NodeType end) {
-    SearchNode endNode = computeShortestPath(start, end);
+    CompactGraph<NodeType> graph = snapshot();
+    SearchObserver previous = startObserving();
+    try {
+      return graph.shortestPathData(start, end, searchMode);
+    } finally {
+      stopObserving(previous);
+    }
+  }
 
-    LinkedList<NodeType> path = new LinkedList<>();
-    for (SearchNode node = endNode; node != null; node = node.predecessor) {
-      // adding the nodes for the path
-      path.addFirst(node.node.data);
+  /**
+   * Returns the shortest route from start to end: the data along the path,
+   * the weight of each edge on it, and the total cost, all from one search.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the route along the shortest path between these nodes
+   */
+  public Route<NodeType> shortestRoute(NodeType start, NodeType end) {
+    CompactGraph<NodeType> graph = snapshot();
+    SearchObserver previous = startObserving();
+    try {
+      return graph.shortestRoute(start, end, searchMode);
+    } finally {
+      stopObserving(previous);
     }
+  }
 
-    return path;
+  /**
+   * Returns the cost of the shortest path from start to every node in this
+   * graph, computed with a single search instead of one search per node.
+   *
+   * @param start the data item in the node to measure costs from
+   * @return the costs in the same order as the nodes in getAllNodes() (as
+   *         long as the graph is not modified in between), with infinity for
+   *         nodes that cannot be reached from start
+   * @throws NoSuchElementException if start is not in this graph
+   */
+  public double[] shortestPathCostsFrom(NodeType start) {
+    CompactGraph<NodeType> graph = snapshot();
+    SearchObserver previous = startObserving();
+    try {
+      return graph.shortestPathCostsFrom(start);
+    } finally {
+      stopObserving(previous);
+    }
+  }
 
+  /**
+   * Returns the cost of the shortest path from each start to each end, with
+   * one search per start that stops once every end is settled.
+   *
+   * @param starts the data items in the nodes to measure costs from
+   * @param ends   the data items in the nodes to measure costs to
+   * @return costs[i][j] is the cost from starts.get(i) to ends.get(j), or
+   *         infinity when there is no such path
+   * @throws NoSuchElementException if any start or end is not in this graph
+   */
+  public double[][] shortestPathCostMatrix(List<NodeType> starts, List<NodeType> ends) {
+    return snapshot().shortestPathCostMatrix(starts, ends);
   }
 
   /**
@@ -153,9 +427,13 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
    * @return the cost of the shortest path between these nodes
    */
   public double shortestPathCost(NodeType start, NodeType end) {
-
-    SearchNode endNode = computeShortestPath(start, end);
-    return endNode.cost; // The cost of the shortest path
+    CompactGraph<NodeType> graph = snapshot();
+    SearchObserver previous = startObserving();
+    try {
+      return graph.shortestPathCost(start, end, searchMode);
+    } finally {
+      stopObserving(previous);
+    }
   }
 
   // this test tests the shortestPathData method
@@ -0,0 +1,36 @@
+import java.io.IOException;
+
+/**
+ * This DotParseException is thrown when a dot file cannot be parsed.  It
+ * records the line and column where the problem was found, both counted
+ * from 1, and includes them in its message.
+ */
+public class DotParseException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int line;
+  private final int column;
+
+  /**
+   * Constructor for an exception about the provided position in a dot file.
+   *
+   * @param message what is wrong at that position
+   * @param line    the line of the problem, starting from 1
+   * @param column  the column of the problem in bytes, starting from 1
+   */
+  public DotParseException(String message, int line, int column) {
+    super("line " + line + ", column " + column + ": " + message);
+    this.line = line;
+    this.column = column;
+  }
+
+  public int getLine() {
+    return line;
+  }
+
+  public int getColumn() {
+    return column;
+  }
+
+}
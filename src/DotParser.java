@@ -0,0 +1,474 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This DotParser class reads the graphs in dot files like campus.dot in a
+ * single pass over the bytes of the file, which is memory mapped instead of
+ * read line by line.  Node names are interned as they are read, so each
+ * name becomes one String no matter how many edges use it, and edge weights
+ * are parsed straight from the file's bytes into doubles.  Edges are stored
+ * as node ids in primitive arrays, so there are no objects per edge.
+ *
+ * The parser handles the parts of the dot language that graph files use:
+ * quoted and unquoted ids, comments, attribute lists, graph attributes, and
+ * chains of edges like a -> b -> c.  The weight of an edge is its seconds
+ * attribute.  Edges without one are skipped, like the old line based
+ * loader did, although their nodes are still added.  Subgraphs and ports
+ * are rejected with an error.  Any error is reported with its line and
+ * column as a DotParseException.
+ */
+public class DotParser {
+
+  // the attribute that holds each edge's weight
+  private static final byte[] WEIGHT_ATTRIBUTE = "seconds".getBytes(StandardCharsets.US_ASCII);
+  // exact powers of ten, for parsing decimals without Double.parseDouble
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++)
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+  }
+
+  private final ByteBuffer input;
+  private final int limit;
+  private int pos;
+  // line number of pos, and the position where that line starts
+  private int line = 1;
+  private int lineStart;
+
+  // bytes of the id read last, with any escapes removed
+  private byte[] token = new byte[64];
+  private int tokenLength;
+  private boolean tokenQuoted;
+
+  // interned names, and an open addressing table of their ids + 1
+  private final List<String> names = new ArrayList<>();
+  private final List<byte[]> nameBytes = new ArrayList<>();
+  private final List<Integer> nameHashes = new ArrayList<>();
+  private int[] nameTable = new int[256];
+
+  // edges in the order they appear in the file
+  private int[] edgeSources = new int[256];
+  private int[] edgeTargets = new int[256];
+  private double[] edgeWeights = new double[256];
+  private int edgeCount;
+
+  private DotParser(ByteBuffer input) {
+    this.input = input;
+    this.pos = input.position();
+    this.limit = input.limit();
+    this.lineStart = pos;
+  }
+
+  /**
+   * Memory maps a dot file and parses it.
+   *
+   * @param file the dot file to read
+   * @return the parser holding the nodes and edges from the file
+   * @throws DotParseException if the file is not a valid dot graph
+   * @throws IOException       if the file cannot be read
+   */
+  public static DotParser parse(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE)
+        throw new IOException(file + " is too large to load");
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return parse(buffer);
+    }
+  }
+
+  /**
+   * Parses a dot graph from the remaining bytes of a buffer, which must be
+   * UTF-8 or ASCII text.
+   *
+   * @param input the bytes to parse
+   * @return the parser holding the nodes and edges that were read
+   * @throws DotParseException if the bytes are not a valid dot graph
+   */
+  public static DotParser parse(ByteBuffer input) throws DotParseException {
+    DotParser parser = new DotParser(input);
+    parser.parseGraph();
+    return parser;
+  }
+
+  /**
+   * Returns the names of the nodes, in the order they first appear in the
+   * file.  A node's id is its position in this list.
+   *
+   * @return read-only list of node names
+   */
+  public List<String> getNames() {
+    return Collections.unmodifiableList(names);
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Returns the id of the node that edge i leaves.
+   */
+  public int getEdgeSource(int i) {
+    return edgeSources[i];
+  }
+
+  /**
+   * Returns the id of the node that edge i enters.
+   */
+  public int getEdgeTarget(int i) {
+    return edgeTargets[i];
+  }
+
+  /**
+   * Returns the weight (the seconds attribute) of edge i.
+   */
+  public double getEdgeWeight(int i) {
+    return edgeWeights[i];
+  }
+
+  // graph : [strict] (graph | digraph) [id] '{' statement* '}'
+  private void parseGraph() throws DotParseException {
+    skipSpace();
+    readId("a graph");
+    if (isKeyword("strict")) {
+      skipSpace();
+      readId("a graph");
+    }
+    boolean directed;
+    if (isKeyword("digraph"))
+      directed = true;
+    else if (isKeyword("graph"))
+      directed = false;
+    else
+      throw error("expected digraph or graph");
+    skipSpace();
+    if (peek() != '{')
+      readId("a graph name");
+    skipSpace();
+    expect('{');
+    skipSpace();
+    while (peek() != '}') {
+      if (pos >= limit)
+        throw error("expected } at the end of the graph");
+      parseStatement(directed);
+      skipSpace();
+    }
+    pos++;
+    skipSpace();
+    if (pos < limit)
+      throw error("unexpected text after the end of the graph");
+  }
+
+  // statement : (graph | node | edge) attributes
+  //           | id '=' id
+  //           | id [attributes]
+  //           | id (-> id)+ [attributes]
+  private void parseStatement(boolean directed) throws DotParseException {
+    if (peek() == '{')
+      throw error("subgraphs are not supported");
+    readId("a statement");
+    skipSpace();
+    if (!tokenQuoted && (isKeyword("graph") || isKeyword("node") || isKeyword("edge"))
+            && peek() == '[') {
+      parseAttributes();
+    } else if (peek() == '=') {
+      pos++;
+      skipSpace();
+      readId("an attribute value");
+    } else if (peek() == ':') {
+      throw error("ports are not supported");
+    } else if (peek() == '-' && pos + 1 < limit
+            && (peekAt(pos + 1) == '>' || peekAt(pos + 1) == '-')) {
+      parseEdges(directed);
+    } else if (peek() == '[') {
+      // attributes of a single node are not used
+      parseAttributes();
+    }
+    skipSpace();
+    if (peek() == ';' || peek() == ',')
+      pos++;
+  }
+
+  // reads the rest of an edge statement, after the id of its first node
+  private void parseEdges(boolean directed) throws DotParseException {
+    int first = edgeCount;
+    int pred = intern();
+    do {
+      int opLine = line;
+      int opColumn = pos - lineStart + 1;
+      boolean arrow = peekAt(pos + 1) == '>';
+      pos += 2;
+      if (arrow != directed)
+        throw new DotParseException(directed ? "expected -> in a digraph" : "expected -- in a graph",
+                opLine, opColumn);
+      skipSpace();
+      if (peek() == '{')
+        throw error("subgraphs are not supported");
+      readId("a node");
+      int succ = intern();
+      addEdge(pred, succ);
+      if (!directed)
+        addEdge(succ, pred);
+      pred = succ;
+      skipSpace();
+    } while (peek() == '-' && pos + 1 < limit
+            && (peekAt(pos + 1) == '>' || peekAt(pos + 1) == '-'));
+
+    double weight = Double.NaN;
+    if (peek() == '[')
+      weight = parseAttributes();
+    if (Double.isNaN(weight)) {
+      // the old loader skipped edges without a weight, so this does too
+      edgeCount = first;
+      return;
+    }
+    for (int i = first; i < edgeCount; i++)
+      edgeWeights[i] = weight;
+  }
+
+  // reads one or more [name=value, ...] lists, and returns the value of the
+  // weight attribute, or NaN when there is none
+  private double parseAttributes() throws DotParseException {
+    double weight = Double.NaN;
+    while (peek() == '[') {
+      pos++;
+      skipSpace();
+      while (peek() != ']') {
+        if (pos >= limit)
+          throw error("expected ] at the end of the attributes");
+        readId("an attribute name");
+        boolean isWeight = !tokenQuoted && tokenLength == WEIGHT_ATTRIBUTE.length
+                && Arrays.equals(token, 0, tokenLength, WEIGHT_ATTRIBUTE, 0, tokenLength);
+        skipSpace();
+        if (peek() == '=') {
+          pos++;
+          skipSpace();
+          int valueLine = line;
+          int valueColumn = pos - lineStart + 1;
+          readId("an attribute value");
+          if (isWeight) {
+            weight = parseNumber();
+            if (!(weight >= 0))
+              throw new DotParseException("invalid seconds value \"" + tokenString() + "\"",
+                      valueLine, valueColumn);
+          }
+        }
+        skipSpace();
+        if (peek() == ';' || peek() == ',') {
+          pos++;
+          skipSpace();
+        }
+      }
+      pos++;
+      skipSpace();
+    }
+    return weight;
+  }
+
+  // reads an id into token: a quoted string, a number, or a name made of
+  // letters, digits, underscores, and non-ASCII bytes
+  private void readId(String what) throws DotParseException {
+    tokenLength = 0;
+    tokenQuoted = false;
+    if (pos >= limit)
+      throw error("expected " + what + " but the file ended");
+    byte b = peek();
+    if (b == '"') {
+      tokenQuoted = true;
+      int startLine = line;
+      int startColumn = pos - lineStart + 1;
+      pos++;
+      while (true) {
+        if (pos >= limit)
+          throw new DotParseException("unterminated quoted string", startLine, startColumn);
+        b = input.get(pos++);
+        if (b == '"')
+          break;
+        if (b == '\\' && pos < limit && input.get(pos) == '"') {
+          b = '"';
+          pos++;
+        } else if (b == '\n') {
+          line++;
+          lineStart = pos;
+        }
+        append(b);
+      }
+    } else if (isIdByte(b) || b == '-' || b == '.') {
+      while (pos < limit && (isIdByte(peek()) || peek() == '.'
+              || (peek() == '-' && tokenLength == 0))) {
+        append(peek());
+        pos++;
+      }
+    } else {
+      throw error("expected " + what);
+    }
+  }
+
+  private static boolean isIdByte(byte b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+            || b == '_' || b < 0;
+  }
+
+  private void append(byte b) {
+    if (tokenLength == token.length)
+      token = Arrays.copyOf(token, token.length * 2);
+    token[tokenLength++] = b;
+  }
+
+  private String tokenString() {
+    return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+  }
+
+  // dot keywords are case insensitive, and are never quoted
+  private boolean isKeyword(String keyword) {
+    if (tokenQuoted || tokenLength != keyword.length())
+      return false;
+    for (int i = 0; i < tokenLength; i++)
+      if (Character.toLowerCase((char) token[i]) != keyword.charAt(i))
+        return false;
+    return true;
+  }
+
+  // parses token as a number; plain decimals with up to 15 digits are exact
+  // in a long and divided by an exact power of ten, which rounds the same
+  // way Double.parseDouble does, and anything else goes to parseDouble
+  private double parseNumber() throws DotParseException {
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean point = false;
+    boolean simple = tokenLength > 0 && tokenLength <= 16;
+    for (int i = 0; i < tokenLength && simple; i++) {
+      byte b = token[i];
+      if (b >= '0' && b <= '9') {
+        mantissa = mantissa * 10 + (b - '0');
+        digits++;
+        if (point)
+          fractionDigits++;
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        simple = false;
+      }
+    }
+    if (simple && digits > 0)
+      return fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+    try {
+      return Double.parseDouble(tokenString());
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  // returns the id of the node named by token, adding it when it is new
+  private int intern() {
+    int hash = 0;
+    for (int i = 0; i < tokenLength; i++)
+      hash = hash * 31 + token[i];
+    hash ^= hash >>> 16;
+    int mask = nameTable.length - 1;
+    int slot = hash & mask;
+    while (nameTable[slot] != 0) {
+      int id = nameTable[slot] - 1;
+      byte[] bytes = nameBytes.get(id);
+      if (nameHashes.get(id) == hash
+              && Arrays.equals(bytes, 0, bytes.length, token, 0, tokenLength))
+        return id;
+      slot = (slot + 1) & mask;
+    }
+    int id = names.size();
+    names.add(tokenString());
+    nameBytes.add(Arrays.copyOf(token, tokenLength));
+    nameHashes.add(hash);
+    nameTable[slot] = id + 1;
+    if (names.size() * 2 > nameTable.length)
+      growNameTable();
+    return id;
+  }
+
+  private void growNameTable() {
+    nameTable = new int[nameTable.length * 2];
+    int mask = nameTable.length - 1;
+    for (int id = 0; id < names.size(); id++) {
+      int slot = nameHashes.get(id) & mask;
+      while (nameTable[slot] != 0)
+        slot = (slot + 1) & mask;
+      nameTable[slot] = id + 1;
+    }
+  }
+
+  private void addEdge(int pred, int succ) {
+    if (edgeCount == edgeSources.length) {
+      edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+      edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+      edgeWeights = Arrays.copyOf(edgeWeights, edgeCount * 2);
+    }
+    edgeSources[edgeCount] = pred;
+    edgeTargets[edgeCount] = succ;
+    edgeCount++;
+  }
+
+  // skips whitespace and comments, keeping track of line numbers
+  private void skipSpace() throws DotParseException {
+    while (pos < limit) {
+      byte b = input.get(pos);
+      if (b == '\n') {
+        pos++;
+        line++;
+        lineStart = pos;
+      } else if (b == ' ' || b == '\t' || b == '\r') {
+        pos++;
+      } else if (b == '#' && pos == lineStart
+              || b == '/' && pos + 1 < limit && input.get(pos + 1) == '/') {
+        while (pos < limit && input.get(pos) != '\n')
+          pos++;
+      } else if (b == '/' && pos + 1 < limit && input.get(pos + 1) == '*') {
+        int startLine = line;
+        int startColumn = pos - lineStart + 1;
+        pos += 2;
+        while (pos + 1 < limit && !(input.get(pos) == '*' && input.get(pos + 1) == '/')) {
+          if (input.get(pos) == '\n') {
+            line++;
+            lineStart = pos + 1;
+          }
+          pos++;
+        }
+        if (pos + 1 >= limit)
+          throw new DotParseException("unterminated comment", startLine, startColumn);
+        pos += 2;
+      } else {
+        return;
+      }
+    }
+  }
+
+  // returns the byte at pos, or 0 at the end of the input
+  private byte peek() {
+    return peekAt(pos);
+  }
+
+  private byte peekAt(int index) {
+    return index < limit ? input.get(index) : 0;
+  }
+
+  private void expect(char c) throws DotParseException {
+    if (peek() != c)
+      throw error("expected " + c);
+    pos++;
+  }
+
+  private DotParseException error(String message) {
+    return new DotParseException(message, line, pos - lineStart + 1);
+  }
+
+}
@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the DotParser and for Backend.loadGraphData, which uses it.
+ */
+public class DotParserTests {
+
+  private static DotParser parse(String text) throws DotParseException {
+    return DotParser.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  // every edge line of campus.dot is read with the same names and weights
+  // that splitting each line would give
+  @Test
+  public void testCampusMatchesLines() throws IOException {
+    DotParser parsed = DotParser.parse(Paths.get("campus.dot"));
+    List<String> lines = Files.readAllLines(Paths.get("campus.dot"));
+    int edge = 0;
+    for (String line : lines) {
+      if (!line.contains("->"))
+        continue;
+      String[] parts = line.split("->");
+      String[] destination = parts[1].split("\\[seconds=");
+      assertEquals(parts[0].trim().replace("\"", ""),
+              parsed.getNames().get(parsed.getEdgeSource(edge)));
+      assertEquals(destination[0].trim().replace("\"", ""),
+              parsed.getNames().get(parsed.getEdgeTarget(edge)));
+      assertEquals(Double.parseDouble(destination[1].replace("];", "")),
+              parsed.getEdgeWeight(edge));
+      edge++;
+    }
+    assertEquals(edge, parsed.getEdgeCount());
+  }
+
+  // comments, escapes, attribute lists, and chains of edges
+  @Test
+  public void testSyntax() throws DotParseException {
+    DotParser parsed = parse("/* campus */ digraph g {\n"
+            + "  node [shape=box]; rankdir=LR\n"
+            + "  // a chain of edges shares its attributes\n"
+            + "  a -> \"b \\\"c\\\"\" -> d [color=red, seconds=1.25];\n"
+            + "  d -> a [seconds=\"2e1\"]\n"
+            + "  a -> e\n"
+            + "  d\n"
+            + "}\n");
+    assertEquals(List.of("a", "b \"c\"", "d", "e"), parsed.getNames());
+    assertEquals(3, parsed.getEdgeCount());
+    assertEquals(1, parsed.getEdgeTarget(0));
+    assertEquals(1, parsed.getEdgeSource(1));
+    assertEquals(1.25, parsed.getEdgeWeight(1));
+    assertEquals(20.0, parsed.getEdgeWeight(2));
+  }
+
+  // errors report the line and column where they were found
+  @Test
+  public void testErrorPositions() {
+    DotParseException e = assertThrows(DotParseException.class,
+            () -> parse("digraph g {\n  a -> b [seconds=fast];\n}"));
+    assertEquals(2, e.getLine());
+    assertEquals(19, e.getColumn());
+    e = assertThrows(DotParseException.class, () -> parse("digraph g {\n  a -> \"b\n"));
+    assertEquals(2, e.getLine());
+    assertEquals(8, e.getColumn());
+    e = assertThrows(DotParseException.class, () -> parse("graph g { a -> b }"));
+    assertEquals(1, e.getLine());
+    assertEquals(13, e.getColumn());
+  }
+
+  // a missing or broken file is reported, and leaves the old graph in place
+  @Test
+  public void testLoadErrors() throws IOException {
+    Backend backend = new Backend(new DijkstraGraph<>());
+    backend.loadGraphData("campus.dot");
+    assertThrows(IOException.class, () -> backend.loadGraphData("missing.dot"));
+    assertThrows(IOException.class, () -> backend.loadGraphData(null));
+    Path broken = Files.createTempFile("broken", ".dot");
+    try {
+      Files.writeString(broken, "digraph g {\n  a -> b [seconds=1]\n");
+      DotParseException e = assertThrows(DotParseException.class,
+              () -> backend.loadGraphData(broken.toString()));
+      assertTrue(e.getMessage().startsWith("line 3, column 1"), e.getMessage());
+    } finally {
+      Files.delete(broken);
+    }
+    assertEquals(160, backend.getListOfAllLocations().size());
+  }
+
+}
@@ -0,0 +1,217 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class DynamicShortestPathTests {
+
+  // checks that every table of the repaired snapshot agrees with searches of
+  // a snapshot built from scratch, which must match exactly since the
+  // weights are whole numbers
+  private static void assertRepairedTablesMatch(DijkstraGraph<String, Double> graph) {
+    CompactGraph<String> repaired = graph.snapshot();
+    CompactGraph<String> fresh = CompactGraph.of(graph);
+    int n = fresh.getNodeCount();
+    AllPairsIndex allPairs = repaired.getAllPairs();
+    LandmarkIndex landmarks = repaired.getLandmarks();
+    for (int start = 0; start < n; start++) {
+      double[] expected = fresh.shortestPathCostsFrom(fresh.nodeAt(start));
+      ShortestPathTree tree = repaired.getTreeCache().get(start);
+      for (int end = 0; end < n; end++) {
+        Assertions.assertEquals(expected[end], allPairs.cost(start, end));
+        if (tree != null)
+          Assertions.assertEquals(expected[end], tree.cost(end));
+        Assertions.assertTrue(landmarks.lowerBound(start, end) <= expected[end]);
+        if (expected[end] < Double.POSITIVE_INFINITY)
+          Assertions.assertEquals(expected[end], costAlong(fresh, allPairs.path(start, end)));
+      }
+    }
+    // the landmarks' own bounds are their exact distances, less the slack
+    for (int landmark : landmarks.getLandmarks()) {
+      double[] expected = fresh.shortestPathCostsFrom(fresh.nodeAt(landmark));
+      for (int end = 0; end < n; end++)
+        if (expected[end] < Double.POSITIVE_INFINITY)
+          Assertions.assertEquals(expected[end], landmarks.lowerBound(landmark, end), 1e-3);
+    }
+  }
+
+  // adds up the weights along a path of node ids
+  private static double costAlong(CompactGraph<String> graph, int[] path) {
+    double cost = 0;
+    for (int i = 1; i < path.length; i++)
+      cost += graph.getEdge(graph.nodeAt(path[i - 1]), graph.nodeAt(path[i]));
+    return cost;
+  }
+
+  // tests that the landmark tables, all-pairs table and cached trees are
+  // repaired correctly through many rising and falling edge weights
+  @Test
+  public void testRepairsMatchRebuildsOnRandomGraphs() {
+    Random random = new Random(19);
+    for (int round = 0; round < 10; round++) {
+      DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+      int nodes = 5 + random.nextInt(50);
+      for (int i = 0; i < nodes; i++)
+        graph.insertNode("n" + i);
+      int edges = nodes * (1 + random.nextInt(4));
+      for (int i = 0; i < edges; i++)
+        graph.insertEdge("n" + random.nextInt(nodes), "n" + random.nextInt(nodes),
+                (double) random.nextInt(20));
+      graph.prepareLandmarks(3);
+      graph.prepareAllPairs(AllPairsIndex.DEFAULT_MEMORY_BUDGET);
+      graph.prepareTreeCache(ShortestPathTreeCache.DEFAULT_MEMORY_BUDGET);
+      for (int i = 0; i < nodes; i += 3)
+        graph.shortestPathTree("n" + i);
+
+      for (int change = 0; change < 40; change++) {
+        CompactGraph<String> before = graph.snapshot();
+        // change between one and three weights before looking again
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+          int from = random.nextInt(nodes);
+          String pred = before.nodeAt(from);
+          int degree = before.offsets[from + 1] - before.offsets[from];
+          if (degree == 0)
+            continue;
+          String succ = before.nodeAt(before.targets[before.offsets[from] + random.nextInt(degree)]);
+          graph.insertEdge(pred, succ, (double) random.nextInt(30));
+        }
+        CompactGraph<String> after = graph.snapshot();
+        // the snapshot was repaired rather than rebuilt
+        Assertions.assertSame(before.getAllNodes(), after.getAllNodes());
+        assertRepairedTablesMatch(graph);
+      }
+    }
+  }
+
+  // tests weight changes on campus.dot through a Backend over a read-only
+  // CompactGraph, and that tables a change does not affect are shared
+  @Test
+  public void testCampusClosures() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    Backend backend = new Backend(graph);
+    backend.loadGraphData("campus.dot");
+    CompactGraph<String> compact = CompactGraph.of(graph);
+    compact.prepareAllPairs(AllPairsIndex.DEFAULT_MEMORY_BUDGET);
+    compact.prepareLandmarks(4);
+    Backend compactBackend = new Backend(compact);
+
+    Route<String> route = compactBackend.findShortestRoute("Memorial Union", "Union South");
+    List<String> stops = route.getLocations();
+    String pred = stops.get(0);
+    String succ = stops.get(1);
+    double weight = compact.getEdge(pred, succ);
+
+    // close the first step of the route, then open it again
+    Assertions.assertTrue(compactBackend.insertEdge(pred, succ, 1e6));
+    graph.insertEdge(pred, succ, 1e6);
+    Route<String> detour = compactBackend.findShortestRoute("Memorial Union", "Union South");
+    Assertions.assertTrue(detour.getTotalCost() > route.getTotalCost());
+    Assertions.assertEquals(graph.shortestPathCost("Memorial Union", "Union South"),
+            detour.getTotalCost(), 1e-9);
+    Assertions.assertTrue(compactBackend.insertEdge(pred, succ, weight));
+    Assertions.assertEquals(route.getTotalCost(),
+            compactBackend.findShortestRoute("Memorial Union", "Union South").getTotalCost(),
+            1e-9);
+
+    // raising the weight of an edge that no shortest path uses any more
+    // leaves every table as it was
+    CompactGraph<String> closed = compact.withEdgeWeight(pred, succ, 1e6);
+    CompactGraph<String> stillClosed = closed.withEdgeWeight(pred, succ, 2e6);
+    Assertions.assertNotSame(closed, stillClosed);
+    Assertions.assertEquals(2e6, stillClosed.getEdge(pred, succ));
+    Assertions.assertSame(closed.getAllPairs(), stillClosed.getAllPairs());
+    Assertions.assertSame(closed.getLandmarks(), stillClosed.getLandmarks());
+    Assertions.assertNotSame(compact.getAllPairs(), closed.getAllPairs());
+    Assertions.assertEquals(weight, compact.getEdge(pred, succ));
+    Assertions.assertSame(compact, compact.withEdgeWeight(pred, succ, weight));
+    Assertions.assertThrows(NoSuchElementException.class,
+            () -> compact.withEdgeWeight(pred, pred, 1.0));
+  }
+
+  // tests that closures toggled from many threads at once are all kept, as
+  // each change copies the graph that the previous change published
+  @Test
+  public void testConcurrentClosures() throws IOException, InterruptedException {
+    Backend backend = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+    backend.loadGraphData("campus.dot");
+    CompactGraph<String> campus = CompactGraph.of(loadCampus());
+    // one edge per thread, each leaving a different node
+    int threadCount = 8;
+    List<String> preds = new ArrayList<>();
+    List<String> succs = new ArrayList<>();
+    for (int node = 0; preds.size() < threadCount; node++) {
+      if (campus.offsets[node] < campus.offsets[node + 1]) {
+        preds.add(campus.nodeAt(node));
+        succs.add(campus.nodeAt(campus.targets[campus.offsets[node]]));
+      }
+    }
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      String pred = preds.get(t);
+      String succ = succs.get(t);
+      double open = campus.getEdge(pred, succ);
+      double closed = 1000 + t;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 50; i++)
+          backend.insertEdge(pred, succ, i % 2 == 0 ? closed : open);
+        backend.insertEdge(pred, succ, closed);
+      }));
+    }
+    for (Thread thread : threads)
+      thread.start();
+    for (Thread thread : threads)
+      thread.join();
+
+    Path file = Files.createTempFile("closures", ".snapshot");
+    try {
+      backend.saveGraphSnapshot(file.toString());
+      CompactGraph<String> saved = GraphSnapshot.read(file);
+      for (int t = 0; t < threadCount; t++)
+        Assertions.assertEquals(1000 + t, saved.getEdge(preds.get(t), succs.get(t)));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static DijkstraGraph<String, Double> loadCampus() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData("campus.dot");
+    return graph;
+  }
+
+  // tests that a structural change after weight updates still rebuilds the
+  // snapshot, and that the updates are not lost
+  @Test
+  public void testStructuralChangesRebuild() {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    for (String node : List.of("A", "B", "C", "D"))
+      graph.insertNode(node);
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("B", "C", 1.0);
+    graph.insertEdge("A", "C", 5.0);
+    graph.insertEdge("C", "D", 1.0);
+    graph.prepareAllPairs(AllPairsIndex.DEFAULT_MEMORY_BUDGET);
+    CompactGraph<String> first = graph.snapshot();
+    Assertions.assertEquals(List.of("A", "B", "C", "D"), graph.shortestPathData("A", "D"));
+
+    graph.insertEdge("A", "C", 1.0);
+    Assertions.assertEquals(List.of("A", "C", "D"), graph.shortestPathData("A", "D"));
+    Assertions.assertSame(first.getAllNodes(), graph.snapshot().getAllNodes());
+    Assertions.assertEquals(5.0, first.getEdge("A", "C"));
+
+    graph.insertEdge("A", "C", 7.0);
+    graph.insertEdge("A", "D", 9.0);
+    Assertions.assertNotSame(first.getAllNodes(), graph.snapshot().getAllNodes());
+    Assertions.assertEquals(3.0, graph.shortestPathCost("A", "D"));
+    Assertions.assertEquals(7.0, graph.snapshot().getEdge("A", "C"));
+  }
+
+}
@@ -6,8 +6,20 @@ import java.util.NoSuchElementException;
  *  Frontend class with methods that return strings with HTML fragments for different request options.
  */
 public class Frontend implements FrontendInterface {
+  // The prompts never change, so they are built once and shared by all calls
+  private static final String SHORTEST_PATH_PROMPT =
+          "<p>Start location: </p>\n"
+          + "<input type=\"text\" id=\"start\"></input><br>\n"
+          + "<p>Destination: </p>\n"
+          + "<input type=\"text\" id=\"end\"></input><br>\n"
+          + "<input type=\"button\" value=\"ShortestPathData\"></input><br>\n";
+  private static final String CLOSEST_DESTINATION_PROMPT =
+          "<p>Start locations (comma separated list): </p>\n"
+          + "<input type=\"text\" id=\"from\"></input><br>\n"
+          + "<input type=\"button\" value=\"ShortestPathData\"></input><br>\n";
+
   // Variable to store the backend that will be used in this class
-  private BackendInterface backend;
+  private final BackendInterface backend;
   /**
    * Constructor that saves the backend.
    *
@@ -29,13 +41,12 @@ public class Frontend implements FrontendInterface {
    *         make use of to request a shortest path computation
    */
   public String generateShortestPathPromptHTML() {
-    String html = "";
-    html += "<p>Start location: </p>\n";
-    html += "<input type=\"text\" id=\"start\"></input><br>\n";
-    html += "<p>Destination: </p>\n";
-    html += "<input type=\"text\" id=\"end\"></input><br>\n";
-    html += "<input type=\"button\" value=\"ShortestPathData\"></input><br>\n";
-    return html;
+    return SHORTEST_PATH_PROMPT;
+  }
+
+  @Override
+  public void appendShortestPathPromptHTML(StringBuilder html) {
+    html.append(SHORTEST_PATH_PROMPT);
   }
 
   /**
@@ -52,43 +63,37 @@ public class Frontend implements FrontendInterface {
    *         two locations
    */
   public String generateShortestPathResponseHTML(String start, String end) {
-    String html = "";
+    StringBuilder html = new StringBuilder();
+    appendShortestPathResponseHTML(html, start, end);
+    return html.toString();
+  }
+
+  @Override
+  public void appendShortestPathResponseHTML(StringBuilder html, String start, String end) {
     // Adding paragraph that describes the path's start and end locations
-    html += "<p>Start location is \"" + start + "\" and end location is \"" + end + "\".</p>\n";
-    // Adding ordered list (ol) of locations along that shortest path
-    html += "<ol>\n";
-    for (String s : backend.findLocationsOnShortestPath(start, end)) {
-      html += "  <li>" + s + "</li>\n";
-    }
-    html += "</ol>\n";
-    // Adding paragraph (p) that includes the total travel time along this path
+    html.append("<p>Start location is \"").append(start)
+        .append("\" and end location is \"").append(end).append("\".</p>\n");
+    // A single search gives the locations, leg times and total time together
+    Route<String> route;
     try {
-      Double total = this.totalTime(start, end);
-      html += "<p>Total travel time: " + total + ".</p>\n";
+      route = backend.findShortestRoute(start, end);
     } catch (NoSuchElementException e) {
-      html += "<p>No path exists.</p>\n";
+      route = null;
     }
-    return html;
-  }
-
-  /**
-   * Helper method to calculate the total travel time along the shortest path from the start to the end location.
-   * If there is no such path, exception is thrown.
-   *
-   * @param start is the starting location to find a shortest path from
-   * @param end is the destination that this shortest path should end at
-   * @return total travel time
-   * @throws NoSuchElementException when there is no path
-   */
-  private Double totalTime(String start, String end) throws NoSuchElementException {
-    if (start.equals(end)) return 0.0;
-    Double total = 0.0;
-    List<Double> pathTimes = backend.findTimesOnShortestPath(start, end);
-    if (pathTimes.isEmpty()) throw new NoSuchElementException("No path exists.");
-    for (Double t : pathTimes) {
-      total += t;
+    // Adding ordered list (ol) of locations along that shortest path
+    html.append("<ol>\n");
+    if (route != null) {
+      for (String s : route.getLocations()) {
+        html.append("  <li>").append(s).append("</li>\n");
+      }
+    }
+    html.append("</ol>\n");
+    // Adding paragraph (p) that includes the total travel time along this path
+    if (route != null) {
+      html.append("<p>Total travel time: ").append(route.getTotalCost()).append(".</p>\n");
+    } else {
+      html.append("<p>No path exists.</p>\n");
     }
-    return total;
   }
 
   /**
@@ -103,11 +108,12 @@ public class Frontend implements FrontendInterface {
    *         make use of to request a ten closest destinations calculation
    */
   public String generateClosestDestinationsFromAllPromptHTML() {
-    String html = "";
-    html += "<p>Start locations (comma separated list): </p>\n";
-    html += "<input type=\"text\" id=\"from\"></input><br>\n";
-    html += "<input type=\"button\" value=\"ShortestPathData\"></input><br>\n";
-    return html;
+    return CLOSEST_DESTINATION_PROMPT;
+  }
+
+  @Override
+  public void appendClosestDestinationsFromAllPromptHTML(StringBuilder html) {
+    html.append(CLOSEST_DESTINATION_PROMPT);
   }
 
   /**
@@ -126,28 +132,33 @@ public class Frontend implements FrontendInterface {
    *         specified start locations.
    */
   public String generateClosestDestinationsFromAllResponseHTML(String starts) {
+    StringBuilder html = new StringBuilder();
+    appendClosestDestinationsFromAllResponseHTML(html, starts);
+    return html.toString();
+  }
+
+  @Override
+  public void appendClosestDestinationsFromAllResponseHTML(StringBuilder html, String starts) {
     List<String> startLocations = Arrays.asList(starts.split(","));
-    String html = "";
     // Create unordered list (ul) of the start Locations
-    html += "<ul>\n";
+    html.append("<ul>\n");
     for (String start : startLocations) {
-      html += "  <li>" + start.trim() + "</li>\n";
+      html.append("  <li>").append(start.trim()).append("</li>\n");
     }
-    html += "</ul>\n";
+    html.append("</ul>\n");
     // Add paragraph (p) describing the destination that is reached most quickly from all of those start locations (summing travel times)
     try {
       String closestDestination = backend.getClosestDestinationFromAll(startLocations);
-      html += "<p>The destination that is reached most quickly from all of those start locations (summing travel times): \""
-              + closestDestination + "\".</p>\n";
-      Double total = 0.0;
+      html.append("<p>The destination that is reached most quickly from all of those start locations (summing travel times): \"")
+          .append(closestDestination).append("\".</p>\n");
+      double total = 0.0;
       for (String start : startLocations) {
-        total += this.totalTime(start.trim(), closestDestination);
+        total += backend.findShortestRoute(start.trim(), closestDestination).getTotalCost();
       }
-      html += "<p>The total/summed travel time that it take to reach this destination from all specified start locations: "
-              + total + ".</p>\n";
+      html.append("<p>The total/summed travel time that it take to reach this destination from all specified start locations: ")
+          .append(total).append(".</p>\n");
     } catch (NoSuchElementException e) {
-      html += "<p>No destination can be reached from all of the start locations, or any of the start locations does not exist within the graph.</p>\n";
+      html.append("<p>No destination can be reached from all of the start locations, or any of the start locations does not exist within the graph.</p>\n");
     }
-    return html;
   }
 }
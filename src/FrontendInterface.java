@@ -77,4 +77,46 @@ public interface FrontendInterface {
    */
   public String generateClosestDestinationsFromAllResponseHTML(String starts);
 
-}
\ No newline at end of file
+  /**
+   * Appends the html from generateShortestPathPromptHTML() to html, so that
+   * a whole page can be rendered into one StringBuilder.
+   * @param html where to append the prompt
+   */
+  public default void appendShortestPathPromptHTML(StringBuilder html) {
+    html.append(generateShortestPathPromptHTML());
+  }
+
+  /**
+   * Appends the html from generateShortestPathResponseHTML(start, end) to
+   * html.
+   * @param html where to append the response
+   * @param start is the starting location to find a shortest path from
+   * @param end is the destination that this shortest path should end at
+   */
+  public default void appendShortestPathResponseHTML(StringBuilder html, String start,
+                                                     String end) {
+    html.append(generateShortestPathResponseHTML(start, end));
+  }
+
+  /**
+   * Appends the html from generateClosestDestinationsFromAllPromptHTML() to
+   * html.
+   * @param html where to append the prompt
+   */
+  public default void appendClosestDestinationsFromAllPromptHTML(StringBuilder html) {
+    html.append(generateClosestDestinationsFromAllPromptHTML());
+  }
+
+  /**
+   * Appends the html from generateClosestDestinationsFromAllResponseHTML(starts)
+   * to html.
+   * @param html where to append the response
+   * @param starts is the comma separated list of starting locations to
+   *         search from
+   */
+  public default void appendClosestDestinationsFromAllResponseHTML(StringBuilder html,
+                                                                   String starts) {
+    html.append(generateClosestDestinationsFromAllResponseHTML(starts));
+  }
+
+}
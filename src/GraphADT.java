@@ -138,4 +138,25 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    */
   public double shortestPathCost(NodeType start, NodeType end);
 
+  /**
+   * Returns the shortest route from the node containing the start data to
+   * the node containing the end data: the data along the path, the weight of
+   * each edge on it, and the total cost.  Implementations should override
+   * this to compute all of that with a single search.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the route along the shortest path between these nodes
+   * @throws NoSuchElementException if either the start or end node cannot
+   *         be found in the graph, or if there is no directed path from the
+   *         start node to the end node
+   */
+  public default Route<NodeType> shortestRoute(NodeType start, NodeType end) {
+    List<NodeType> path = shortestPathData(start, end);
+    double[] legCosts = new double[path.size() - 1];
+    for (int i = 1; i < path.size(); i++)
+      legCosts[i - 1] = getEdge(path.get(i - 1), path.get(i)).doubleValue();
+    return new Route<>(path, legCosts);
+  }
+
 }
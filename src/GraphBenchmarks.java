@@ -0,0 +1,337 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmarks for loading graphs, shortest path queries, and meeting point
+ * queries, on campus.dot and on a synthetic street grid with over 100k
+ * nodes, along with the cost of recording metrics.  Shortest path queries
+ * are reported for each search engine (each SearchMode, and the all-pairs
+ * table where it fits), so that later changes can be compared against
+ * these numbers.  The map benchmarks from MapBenchmark are run at the end.
+ *
+ * Run with: java GraphBenchmarks [dotFile] [gridSide]
+ * and see Benchmark for the options that control the number of rounds.
+ */
+public class GraphBenchmarks {
+
+  // same seed every run, so that every run measures the same queries
+  private static final long SEED = 340;
+  // number of distinct origins in the repeated origin queries
+  private static final int REPEATED_ORIGINS = 8;
+  // side of the grid that the contraction hierarchy is benchmarked on
+  private static final int CH_GRID_SIDE = 100;
+  // number of sources and of targets in the grid's travel time matrix
+  private static final int MATRIX_SIZE = 50;
+  // size of the dense graph that insertEdge is benchmarked on
+  private static final int DENSE_NODES = 2000;
+  private static final int DENSE_DEGREE = 200;
+
+  public static void main(String[] args) throws IOException {
+    String campusFile = args.length > 0 ? args[0] : "./campus.dot";
+    int side = args.length > 1 ? Integer.parseInt(args[1]) : 317;
+    Path gridFile = Files.createTempFile("grid", ".dot");
+    Path campusSnapshot = Files.createTempFile("campus", ".snapshot");
+    Path gridSnapshot = Files.createTempFile("grid", ".snapshot");
+    try {
+      SyntheticGraphs.writeGridDot(gridFile, side, side, SEED);
+      load(new DijkstraGraph<>(), campusFile).saveGraphSnapshot(campusSnapshot.toString());
+      load(new DijkstraGraph<>(), gridFile.toString()).saveGraphSnapshot(gridSnapshot.toString());
+
+      System.out.println("loadGraphData:");
+      benchmarkLoad("campus.dot", campusFile, 5, 10);
+      benchmarkLoad(side + "x" + side + " grid", gridFile.toString(), 1, 3);
+      benchmarkSnapshotLoad("campus snapshot", campusSnapshot.toString(), 5, 10);
+      benchmarkSnapshotLoad(side + "x" + side + " grid snapshot", gridSnapshot.toString(), 1, 3);
+      benchmarkDenseLoad(DENSE_NODES, DENSE_DEGREE);
+
+      DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+      load(campus, campusFile);
+      DijkstraGraph<String, Double> grid = new DijkstraGraph<>();
+      SyntheticGraphs.grid(grid, side, side, SEED);
+
+      benchmarkShortestPaths("campus.dot", campus, 1000);
+      benchmarkShortestPaths(side + "x" + side + " grid", grid, 20);
+      benchmarkContractionHierarchy("campus.dot", campus, 1000);
+      // preprocessing the full grid takes minutes, so a smaller one is used
+      int chSide = Math.min(side, CH_GRID_SIDE);
+      DijkstraGraph<String, Double> chGrid = new DijkstraGraph<>();
+      SyntheticGraphs.grid(chGrid, chSide, chSide, SEED);
+      benchmarkContractionHierarchy(chSide + "x" + chSide + " grid", chGrid, 1000);
+
+      benchmarkMeetingPoint("campus.dot", campusFile, 100);
+      benchmarkMeetingPoint(side + "x" + side + " grid", gridFile.toString(), 5);
+      benchmarkTravelTimeMatrix("campus.dot", campusFile, 100);
+      benchmarkTravelTimeMatrix(side + "x" + side + " grid", gridFile.toString(), MATRIX_SIZE);
+      benchmarkMetrics(campusFile, 1000);
+
+      MapBenchmark.run(campus.getAllNodes());
+      MapBenchmark.run(grid.getAllNodes());
+    } finally {
+      Files.deleteIfExists(gridFile);
+      Files.deleteIfExists(campusSnapshot);
+      Files.deleteIfExists(gridSnapshot);
+    }
+  }
+
+  // loads a dot file through a Backend
+  private static Backend load(GraphADT<String, Double> graph, String file) throws IOException {
+    Backend backend = new Backend(graph);
+    backend.loadGraphData(file);
+    return backend;
+  }
+
+  private static void benchmarkLoad(String label, String file, int warmup, int rounds) {
+    Benchmark.run(label, warmup, rounds, 1, () -> {
+      try {
+        return load(new DijkstraGraph<>(), file).getListOfAllLocations().size();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  // inserts the edges of a graph whose nodes have hundreds of edges each,
+  // where every insertEdge has to check for an existing edge first
+  private static void benchmarkDenseLoad(int nodes, int degree) {
+    Benchmark.run(nodes + " nodes x " + degree + " edges", 1, 3, 1, () -> {
+      DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+      SyntheticGraphs.randomSparse(graph, nodes, degree, SEED);
+      return graph.getEdgeCount();
+    });
+  }
+
+  // loads a snapshot into a Backend over a CompactGraph, which uses it as is
+  private static void benchmarkSnapshotLoad(String label, String file, int warmup, int rounds) {
+    Benchmark.run(label, warmup, rounds, 1, () -> {
+      try {
+        return load(CompactGraph.of(new DijkstraGraph<String, Double>()), file)
+                .getListOfAllLocations().size();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  // times shortestPathData and shortestPathCost over the same random pairs
+  // with each engine, and with a SearchObserver counting the search steps
+  private static void benchmarkShortestPaths(String label, DijkstraGraph<String, Double> graph,
+                                             int pairs) {
+    System.out.println("shortest paths on " + label + ", " + pairs + " random pairs:");
+    List<String> nodes = graph.getAllNodes();
+    Random random = new Random(SEED);
+    List<String[]> queries = new ArrayList<>(pairs);
+    for (int i = 0; i < pairs; i++)
+      queries.add(new String[] {nodes.get(random.nextInt(nodes.size())),
+                                nodes.get(random.nextInt(nodes.size()))});
+
+    graph.prepareLandmarks(8);
+    for (SearchMode mode : SearchMode.values()) {
+      graph.setSearchMode(mode);
+      benchmarkQueries(mode.toString(), graph, queries);
+    }
+    graph.setSearchMode(SearchMode.DIJKSTRA);
+    // the cost of observing every step of the searches, against DIJKSTRA
+    // above where nothing observes them
+    graph.setSearchObserver(new SearchCounter());
+    benchmarkQueries("DIJKSTRA with SearchCounter", graph, queries);
+    graph.setSearchObserver(SearchObserver.NONE);
+    if (graph.prepareAllPairs(AllPairsIndex.DEFAULT_MEMORY_BUDGET))
+      benchmarkQueries("all-pairs table", graph, queries);
+    else
+      System.out.println("  all-pairs table: does not fit in "
+              + AllPairsIndex.DEFAULT_MEMORY_BUDGET + " bytes, skipped");
+    graph.prepareAllPairs(0);
+
+    // the same number of queries, but from only a few origins, comparing
+    // searches against walking cached shortest path trees
+    List<String[]> repeated = new ArrayList<>(pairs);
+    for (int i = 0; i < pairs; i++)
+      repeated.add(new String[] {queries.get(i % REPEATED_ORIGINS)[0], queries.get(i)[1]});
+    graph.setSearchMode(SearchMode.ALT);
+    benchmarkQueries(REPEATED_ORIGINS + " origins, ALT", graph, repeated);
+    graph.prepareTreeCache(ShortestPathTreeCache.DEFAULT_MEMORY_BUDGET);
+    benchmarkQueries(REPEATED_ORIGINS + " origins, tree cache", graph, repeated);
+    graph.prepareTreeCache(0);
+    graph.setSearchMode(SearchMode.DIJKSTRA);
+  }
+
+  // times preprocessing a ContractionHierarchy with the same nodes and edges
+  // as graph, then queries on it between random pairs
+  private static void benchmarkContractionHierarchy(String label,
+                                                    DijkstraGraph<String, Double> graph,
+                                                    int pairs) {
+    System.out.println("contraction hierarchy on " + label + ", " + pairs + " random pairs:");
+    CompactGraph<String> compact = graph.snapshot();
+    ContractionHierarchy<String, Double> hierarchy = new ContractionHierarchy<>();
+    for (String node : compact.getAllNodes())
+      hierarchy.insertNode(node);
+    for (int node = 0; node < compact.getNodeCount(); node++)
+      for (int i = compact.offsets[node]; i < compact.offsets[node + 1]; i++)
+        hierarchy.insertEdge(compact.nodeAt(node), compact.nodeAt(compact.targets[i]),
+                compact.weights[i]);
+    Benchmark.run("preprocessing", 0, 1, 1, () -> {
+      hierarchy.prepare();
+      return hierarchy.getShortcutCount();
+    });
+
+    List<String> nodes = compact.getAllNodes();
+    Random random = new Random(SEED);
+    List<String[]> queries = new ArrayList<>(pairs);
+    for (int i = 0; i < pairs; i++)
+      queries.add(new String[] {nodes.get(random.nextInt(nodes.size())),
+                                nodes.get(random.nextInt(nodes.size()))});
+    Benchmark.run("shortestPathData", queries.size(), () -> {
+      long length = 0;
+      for (String[] query : queries) {
+        try {
+          length += hierarchy.shortestPathData(query[0], query[1]).size();
+        } catch (NoSuchElementException e) {
+          length--;
+        }
+      }
+      return length;
+    });
+  }
+
+  private static void benchmarkQueries(String engine, DijkstraGraph<String, Double> graph,
+                                       List<String[]> queries) {
+    Benchmark.run(engine + " shortestPathData", queries.size(), () -> {
+      long length = 0;
+      for (String[] query : queries) {
+        try {
+          length += graph.shortestPathData(query[0], query[1]).size();
+        } catch (NoSuchElementException e) {
+          length--;
+        }
+      }
+      return length;
+    });
+    Benchmark.run(engine + " shortestPathCost", queries.size(), () -> {
+      double total = 0;
+      for (String[] query : queries) {
+        try {
+          total += graph.shortestPathCost(query[0], query[1]);
+        } catch (NoSuchElementException e) {
+          total--;
+        }
+      }
+      return (long) total;
+    });
+  }
+
+  // times getClosestDestinationFromAll with 2 to 10 random start locations
+  private static void benchmarkMeetingPoint(String label, String file, int queries)
+          throws IOException {
+    System.out.println("getClosestDestinationFromAll on " + label + ", " + queries + " queries:");
+    Backend backend = load(new DijkstraGraph<>(), file);
+    List<String> nodes = backend.getListOfAllLocations();
+    Random random = new Random(SEED);
+    for (int starts = 2; starts <= 10; starts += 2) {
+      List<List<String>> startLists = new ArrayList<>(queries);
+      for (int i = 0; i < queries; i++) {
+        List<String> startList = new ArrayList<>(starts);
+        for (int s = 0; s < starts; s++)
+          startList.add(nodes.get(random.nextInt(nodes.size())));
+        startLists.add(startList);
+      }
+      Benchmark.run(starts + " starts", queries, () -> {
+        long hash = 0;
+        for (List<String> startList : startLists) {
+          try {
+            hash += backend.getClosestDestinationFromAll(startList).hashCode();
+          } catch (NoSuchElementException e) {
+            hash--;
+          }
+        }
+        return hash;
+      });
+    }
+  }
+
+  // times a size x size travel time matrix between random locations, with
+  // one findShortestRoute call per cell and with computeTravelTimeMatrix
+  private static void benchmarkTravelTimeMatrix(String label, String file, int size)
+          throws IOException {
+    System.out.println("travel time matrix on " + label + ", " + size + "x" + size + ":");
+    Backend backend = load(new DijkstraGraph<>(), file);
+    // every round asks for the same routes, so none are cached
+    backend.setRouteCacheLimits(0, 0);
+    List<String> nodes = backend.getListOfAllLocations();
+    Random random = new Random(SEED);
+    List<String> sources = new ArrayList<>(size);
+    List<String> targets = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      sources.add(nodes.get(random.nextInt(nodes.size())));
+      targets.add(nodes.get(random.nextInt(nodes.size())));
+    }
+    Benchmark.run("findShortestRoute per cell", 1, 3, 1, () -> {
+      double total = 0;
+      for (String source : sources)
+        for (String target : targets) {
+          try {
+            total += backend.findShortestRoute(source, target).getTotalCost();
+          } catch (NoSuchElementException e) {
+            total--;
+          }
+        }
+      return (long) total;
+    });
+    Benchmark.run("computeTravelTimeMatrix", 1, 3, 1, () -> {
+      double total = 0;
+      for (double[] row : backend.computeTravelTimeMatrix(sources, targets))
+        for (double time : row)
+          total += time < Double.POSITIVE_INFINITY ? time : -1;
+      return (long) total;
+    });
+  }
+
+  // times recording to a histogram and a counter, and the same shortest
+  // path queries with and without a MeasuredBackend around the backend
+  private static void benchmarkMetrics(String file, int queries) throws IOException {
+    System.out.println("metrics:");
+    Metrics metrics = new Metrics();
+    LatencyHistogram histogram = metrics.histogram("benchmark_seconds", "", 1e-9);
+    LongAdder counter = metrics.counter("benchmark_total", "");
+    int records = 1_000_000;
+    Benchmark.run("LatencyHistogram.record", records, () -> {
+      for (int i = 0; i < records; i++)
+        histogram.record(i * 37L);
+      return histogram.snapshot().getCount();
+    });
+    Benchmark.run("counter increment", records, () -> {
+      for (int i = 0; i < records; i++)
+        counter.increment();
+      return counter.sum();
+    });
+
+    Backend backend = load(new DijkstraGraph<>(), file);
+    // every round asks for the same routes, so none are cached
+    backend.setRouteCacheLimits(0, 0);
+    BackendInterface measured = new MeasuredBackend(backend, metrics);
+    List<String> nodes = backend.getListOfAllLocations();
+    Random random = new Random(SEED);
+    List<String[]> pairs = new ArrayList<>(queries);
+    for (int i = 0; i < queries; i++)
+      pairs.add(new String[] {nodes.get(random.nextInt(nodes.size())),
+          nodes.get(random.nextInt(nodes.size()))});
+    for (BackendInterface b : List.of(backend, measured))
+      Benchmark.run((b == backend ? "" : "measured ") + "findShortestRoute", queries, () -> {
+        double total = 0;
+        for (String[] pair : pairs) {
+          try {
+            total += b.findShortestRoute(pair[0], pair[1]).getTotalCost();
+          } catch (NoSuchElementException e) {
+            total--;
+          }
+        }
+        return (long) total;
+      });
+  }
+
+}
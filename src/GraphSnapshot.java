@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This GraphSnapshot class saves a CompactGraph with String node data to a
+ * binary file, and loads it back, so that a server can restart without
+ * parsing its dot file again.  The file holds the same CSR arrays that the
+ * CompactGraph searches, so loading one is a few bulk copies out of a memory
+ * mapped file, with no objects created per edge.
+ *
+ * The file is laid out as follows, with every number big endian:
+ *   int    MAGIC, then VERSION
+ *   int    node count n, edge count m, and length b of the name bytes
+ *   int[]  n + 1 offsets into the name bytes, one per name plus the end
+ *   byte[] b bytes of UTF-8 node names, back to back
+ *   int[]  n + 1 CSR offsets, then m CSR targets
+ *   zero to seven zero bytes, so the weights start at a multiple of 8
+ *   double[] m edge weights
+ *
+ * To convert a dot file: java GraphSnapshot campus.dot campus.snapshot
+ */
+public class GraphSnapshot {
+
+  // the first four bytes of every snapshot: "CNAV" in ASCII
+  public static final int MAGIC = 0x434E4156;
+  // changed whenever the layout changes, so old files are rejected
+  public static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("usage: java GraphSnapshot <dotFile> <snapshotFile>");
+      return;
+    }
+    Backend backend = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+    backend.loadGraphData(args[0]);
+    backend.saveGraphSnapshot(args[1]);
+  }
+
+  /**
+   * Checks whether a file starts with the snapshot magic number.
+   *
+   * @param file the file to check
+   * @return true if file looks like a snapshot, false otherwise
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean isSnapshot(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+      while (magic.hasRemaining() && channel.read(magic) >= 0)
+        ;
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Writes graph to a snapshot file, replacing anything already there.
+   *
+   * @param graph the graph to save
+   * @param file  where to save it
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(CompactGraph<String> graph, Path file) throws IOException {
+    int n = graph.getNodeCount();
+    int m = graph.targets.length;
+    List<byte[]> nameBytes = new ArrayList<>(n);
+    int nameLength = 0;
+    for (String name : graph.names) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      nameBytes.add(bytes);
+      nameLength += bytes.length;
+    }
+
+    int weightStart = align(HEADER_BYTES + (n + 1) * Integer.BYTES + nameLength
+            + (n + 1 + m) * Integer.BYTES);
+    ByteBuffer buffer = ByteBuffer.allocate(weightStart + m * Double.BYTES);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putInt(nameLength);
+    int nameOffset = 0;
+    buffer.putInt(nameOffset);
+    for (byte[] bytes : nameBytes) {
+      nameOffset += bytes.length;
+      buffer.putInt(nameOffset);
+    }
+    for (byte[] bytes : nameBytes)
+      buffer.put(bytes);
+    buffer.asIntBuffer().put(graph.offsets).put(graph.targets);
+    buffer.position(weightStart);
+    buffer.asDoubleBuffer().put(graph.weights);
+    buffer.position(0);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining())
+        channel.write(buffer);
+    }
+  }
+
+  /**
+   * Loads a CompactGraph from a snapshot file.  The arrays are checked, so a
+   * damaged file is rejected instead of producing a broken graph.
+   *
+   * @param file the snapshot to load
+   * @return the graph saved in that file
+   * @throws IOException if the file cannot be read, or is not a valid
+   *                     snapshot of the current version
+   */
+  public static CompactGraph<String> read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES)
+        throw corrupt(file, "it is too short");
+      if (size > Integer.MAX_VALUE)
+        throw new IOException(file + " is too large to load");
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+      if (buffer.getInt() != MAGIC)
+        throw corrupt(file, "it does not start with the snapshot magic number");
+      int version = buffer.getInt();
+      if (version != VERSION)
+        throw corrupt(file, "it is version " + version + ", but only version " + VERSION
+                + " can be read");
+      int n = buffer.getInt();
+      int m = buffer.getInt();
+      int nameLength = buffer.getInt();
+      if (n < 0 || m < 0 || nameLength < 0)
+        throw corrupt(file, "its header is invalid");
+      long weightStart = align(HEADER_BYTES + (n + 1L) * Integer.BYTES + nameLength
+              + (n + 1L + m) * Integer.BYTES);
+      if (size != weightStart + (long) m * Double.BYTES)
+        throw corrupt(file, "its size does not match its header");
+
+      int[] nameOffsets = new int[n + 1];
+      buffer.asIntBuffer().get(nameOffsets);
+      buffer.position(buffer.position() + nameOffsets.length * Integer.BYTES);
+      byte[] nameBytes = new byte[nameLength];
+      buffer.get(nameBytes);
+      if (!isIncreasing(nameOffsets, nameLength))
+        throw corrupt(file, "its name offsets are invalid");
+      List<String> names = new ArrayList<>(n);
+      for (int i = 0; i < n; i++)
+        names.add(new String(nameBytes, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i],
+                StandardCharsets.UTF_8));
+
+      int[] offsets = new int[n + 1];
+      int[] targets = new int[m];
+      buffer.asIntBuffer().get(offsets).get(targets);
+      double[] weights = new double[m];
+      buffer.position((int) weightStart);
+      buffer.asDoubleBuffer().get(weights);
+      if (!isIncreasing(offsets, m))
+        throw corrupt(file, "its edge offsets are invalid");
+      for (int target : targets)
+        if (target < 0 || target >= n)
+          throw corrupt(file, "an edge leads to a node that does not exist");
+
+      MapADT<String, Integer> ids;
+      try {
+        ids = CompactGraph.indexNames(names);
+      } catch (IllegalArgumentException e) {
+        throw corrupt(file, "a node name is repeated");
+      }
+      return new CompactGraph<>(names, ids, offsets, targets, weights);
+    }
+  }
+
+  // rounds position up to the next multiple of 8
+  private static int align(int position) {
+    return (position + 7) & ~7;
+  }
+
+  private static long align(long position) {
+    return (position + 7) & ~7L;
+  }
+
+  // checks that offsets starts at 0, never decreases, and ends at end
+  private static boolean isIncreasing(int[] offsets, int end) {
+    if (offsets[0] != 0 || offsets[offsets.length - 1] != end)
+      return false;
+    for (int i = 1; i < offsets.length; i++)
+      if (offsets[i] < offsets[i - 1])
+        return false;
+    return true;
+  }
+
+  private static IOException corrupt(Path file, String reason) {
+    return new IOException(file + " is not a valid graph snapshot: " + reason);
+  }
+
+}
@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for saving graphs as GraphSnapshots and loading them back.
+ */
+public class GraphSnapshotTests {
+
+  // a snapshot of campus.dot loads into both kinds of graph with the same
+  // nodes, edges, and shortest paths as the dot file
+  @Test
+  public void testRoundTrip() throws IOException {
+    Backend fromDot = new Backend(new DijkstraGraph<>());
+    fromDot.loadGraphData("campus.dot");
+    Path file = Files.createTempFile("campus", ".snapshot");
+    try {
+      fromDot.saveGraphSnapshot(file.toString());
+      assertTrue(GraphSnapshot.isSnapshot(file));
+      assertFalse(GraphSnapshot.isSnapshot(Paths.get("campus.dot")));
+
+      CompactGraph<String> original = CompactGraph.of(loadCampus());
+      CompactGraph<String> loaded = GraphSnapshot.read(file);
+      assertEquals(original.getAllNodes(), loaded.getAllNodes());
+      assertTrue(Arrays.equals(original.offsets, loaded.offsets));
+      assertTrue(Arrays.equals(original.targets, loaded.targets));
+      assertTrue(Arrays.equals(original.weights, loaded.weights));
+
+      Backend compact = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+      compact.loadGraphData(file.toString());
+      Backend mutable = new Backend(new DijkstraGraph<>());
+      mutable.loadGraphData(file.toString());
+      for (Backend backend : new Backend[] {compact, mutable}) {
+        assertEquals(fromDot.getListOfAllLocations().size(),
+                backend.getListOfAllLocations().size());
+        assertEquals(fromDot.findShortestRoute("Memorial Union", "Union South").getTotalCost(),
+                backend.findShortestRoute("Memorial Union", "Union South").getTotalCost(), 1e-9);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  // damaged files and files from other versions are rejected
+  @Test
+  public void testRejectsBadFiles() throws IOException {
+    Path file = Files.createTempFile("campus", ".snapshot");
+    try {
+      GraphSnapshot.write(CompactGraph.of(loadCampus()), file);
+      byte[] bytes = Files.readAllBytes(file);
+
+      Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+      assertThrows(IOException.class, () -> GraphSnapshot.read(file));
+
+      byte[] newer = bytes.clone();
+      newer[7] = 2;
+      Files.write(file, newer);
+      IOException e = assertThrows(IOException.class, () -> GraphSnapshot.read(file));
+      assertTrue(e.getMessage().contains("version 2"), e.getMessage());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static DijkstraGraph<String, Double> loadCampus() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData("campus.dot");
+    return graph;
+  }
+
+}
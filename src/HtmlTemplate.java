@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.function.Consumer;
+
+/**
+ * This HtmlTemplate class holds the page that every response is placed in.
+ * The template is read once and split into byte segments around its two
+ * placeholders, so a response is written as those segments with the
+ * response and prompts html in between, without reading or copying the
+ * template again.  Placeholders are replaced literally, so the response may
+ * contain any text.  A placeholder that is missing from the template is
+ * skipped, along with the html that would have replaced it.
+ */
+public class HtmlTemplate {
+
+  public static final String RESPONSE_PLACEHOLDER = "<!-- RESPONSE GOES HERE -->";
+  public static final String PROMPTS_PLACEHOLDER = "<!-- PROMPTS GO HERE -->";
+
+  // used when there is no template file, so the server still works
+  private static final String DEFAULT_TEMPLATE = "<!DOCTYPE html>\n<html>\n<head>\n"
+          + "<meta charset=\"utf-8\">\n<title>Campus Navigator</title>\n</head>\n<body>\n"
+          + "<h1>Campus Navigator</h1>\n" + RESPONSE_PLACEHOLDER + "\n" + PROMPTS_PLACEHOLDER
+          + "\n</body>\n</html>\n";
+
+  // the template is segments[0], slot 0, segments[1], slot 1, segments[2];
+  // each slot is filled with the response when responseFirst is true for
+  // slot 0 (or false for slot 1), and with the prompts otherwise
+  private final byte[][] segments;
+  private final boolean responseFirst;
+  private final boolean hasResponse;
+  private final boolean hasPrompts;
+
+  private HtmlTemplate(String html) {
+    int response = html.indexOf(RESPONSE_PLACEHOLDER);
+    int prompts = html.indexOf(PROMPTS_PLACEHOLDER);
+    hasResponse = response >= 0;
+    hasPrompts = prompts >= 0;
+    // a missing placeholder becomes an empty slot at the end
+    int[] starts = {hasResponse ? response : html.length(), hasPrompts ? prompts : html.length()};
+    int[] ends = {hasResponse ? response + RESPONSE_PLACEHOLDER.length() : html.length(),
+                  hasPrompts ? prompts + PROMPTS_PLACEHOLDER.length() : html.length()};
+    responseFirst = starts[0] <= starts[1];
+    int first = responseFirst ? 0 : 1;
+    int second = 1 - first;
+    if (ends[first] > starts[second])
+      throw new IllegalArgumentException("The template's placeholders overlap");
+    segments = new byte[][] {
+            bytes(html.substring(0, starts[first])),
+            bytes(html.substring(ends[first], starts[second])),
+            bytes(html.substring(ends[second]))};
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a template file.  When the file does not exist, a plain default
+   * page with both placeholders is used instead.
+   *
+   * @param file the template to read
+   * @return the template, split around its placeholders
+   * @throws IOException if the file exists but cannot be read
+   */
+  public static HtmlTemplate load(Path file) throws IOException {
+    try {
+      return new HtmlTemplate(Files.readString(file, StandardCharsets.UTF_8));
+    } catch (NoSuchFileException e) {
+      // standard error, since the cgi script sends standard out as the page
+      System.err.println(file + " not found, using the default page template.");
+      return new HtmlTemplate(DEFAULT_TEMPLATE);
+    }
+  }
+
+  /**
+   * Returns the number of bytes that write would produce.
+   *
+   * @param response the UTF-8 bytes of the response html
+   * @param prompts  the UTF-8 bytes of the prompts html
+   * @return the length of the complete page in bytes
+   */
+  public long length(byte[] response, byte[] prompts) {
+    long length = segments[0].length + segments[1].length + segments[2].length;
+    if (hasResponse)
+      length += response.length;
+    if (hasPrompts)
+      length += prompts.length;
+    return length;
+  }
+
+  /**
+   * Writes the complete page: the template with its placeholders replaced
+   * by the response and prompts.
+   *
+   * @param out      where to write the page
+   * @param response the UTF-8 bytes of the response html
+   * @param prompts  the UTF-8 bytes of the prompts html
+   * @throws IOException if writing to out fails
+   */
+  public void write(OutputStream out, byte[] response, byte[] prompts) throws IOException {
+    byte[] first = responseFirst ? response : prompts;
+    byte[] second = responseFirst ? prompts : response;
+    boolean hasFirst = responseFirst ? hasResponse : hasPrompts;
+    boolean hasSecond = responseFirst ? hasPrompts : hasResponse;
+    out.write(segments[0]);
+    if (hasFirst)
+      out.write(first);
+    out.write(segments[1]);
+    if (hasSecond)
+      out.write(second);
+    out.write(segments[2]);
+  }
+
+  /**
+   * Watches a template file, and reloads it each time it changes, which is
+   * useful while editing the template.  The watching is done by a daemon
+   * thread, so it does not keep the program running.
+   *
+   * @param file     the template file to watch
+   * @param onReload receives each newly loaded template
+   * @throws IOException if the file's directory cannot be watched
+   */
+  public static void watch(Path file, Consumer<HtmlTemplate> onReload) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Path name = file.getFileName();
+    WatchService watcher = FileSystems.getDefault().newWatchService();
+    directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+    Thread thread = new Thread(() -> {
+      try {
+        while (true) {
+          WatchKey key = watcher.take();
+          boolean changed = false;
+          for (WatchEvent<?> event : key.pollEvents())
+            changed |= name.equals(event.context());
+          key.reset();
+          if (!changed)
+            continue;
+          try {
+            onReload.accept(load(file));
+            System.out.println("Reloaded " + file);
+          } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Could not reload " + file + ": " + e);
+          }
+        }
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        // stop watching
+      }
+    }, "template-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+}
@@ -0,0 +1,52 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for filling in an HtmlTemplate.
+ */
+public class HtmlTemplateTests {
+
+  // writes a page from a template with the provided text, and checks that
+  // length() agrees with what was written
+  private static String fill(String templateText, String response, String prompts)
+          throws IOException {
+    Path file = Files.createTempFile("template", ".html");
+    try {
+      Files.writeString(file, templateText);
+      HtmlTemplate template = HtmlTemplate.load(file);
+      byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+      byte[] promptBytes = prompts.getBytes(StandardCharsets.UTF_8);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      template.write(out, responseBytes, promptBytes);
+      assertEquals(template.length(responseBytes, promptBytes), out.size());
+      return out.toString(StandardCharsets.UTF_8);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  // placeholders are replaced in either order, and text like $1 that has a
+  // meaning in regex replacements is copied as is
+  @Test
+  public void testFill() throws IOException {
+    assertEquals("<p>$1 \u00e9</p><form>\n",
+            fill("<p><!-- RESPONSE GOES HERE --></p><!-- PROMPTS GO HERE -->\n",
+                    "$1 \u00e9", "<form>"));
+    assertEquals("a<form>b$1c",
+            fill("a<!-- PROMPTS GO HERE -->b<!-- RESPONSE GOES HERE -->c", "$1", "<form>"));
+  }
+
+  // a missing placeholder leaves out the html that would have replaced it
+  @Test
+  public void testMissingPlaceholder() throws IOException {
+    assertEquals("a<form>b", fill("a<!-- PROMPTS GO HERE -->b", "response", "<form>"));
+    assertEquals("plain", fill("plain", "response", "prompts"));
+  }
+
+}
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This IndexedMinHeap class is a priority queue of int node ids, ordered by a
+ * double key, that is stored entirely in primitive arrays.  Each node can be
+ * queued at most once, and the key of a queued node can be lowered in place
+ * (decrease-key), so shortest path searches never need duplicate entries.
+ *
+ * The heap is 4-ary: each slot has four children, which keeps the tree
+ * shallow and the children of a slot next to each other in memory.
+ */
+public class IndexedMinHeap {
+
+  private static final int ARITY = 4;
+
+  // node id and key stored in each heap slot
+  private int[] nodes;
+  private double[] keys;
+  // slot of each node id, only meaningful while that node is queued
+  private int[] slots;
+  private int size = 0;
+
+  /**
+   * Constructor for a heap that can hold node ids from 0 to capacity-1.
+   *
+   * @param capacity the number of distinct node ids
+   */
+  public IndexedMinHeap(int capacity) {
+    nodes = new int[Math.max(1, capacity)];
+    keys = new double[nodes.length];
+    slots = new int[nodes.length];
+  }
+
+  /**
+   * Grows this heap, if necessary, so that it can hold node ids from 0 to
+   * capacity-1.  Nodes that are already queued stay queued.
+   *
+   * @param capacity the number of distinct node ids
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity <= slots.length)
+      return;
+    nodes = Arrays.copyOf(nodes, capacity);
+    keys = Arrays.copyOf(keys, capacity);
+    slots = Arrays.copyOf(slots, capacity);
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes every node from this heap, without clearing any arrays.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Checks whether a node is currently queued.  The slot of a node is only
+   * trusted when that slot points back at the node, so stale entries from
+   * earlier searches never need to be cleared.
+   *
+   * @param node the node id to check
+   * @return true if node is in this heap, false otherwise
+   */
+  public boolean contains(int node) {
+    int slot = slots[node];
+    return slot < size && nodes[slot] == node;
+  }
+
+  /**
+   * Adds a node to this heap, or lowers its key if it is already queued with
+   * a higher key.
+   *
+   * @param node the node id to queue
+   * @param key  the priority of that node, lower keys are removed first
+   */
+  public void insertOrDecrease(int node, double key) {
+    if (contains(node)) {
+      int slot = slots[node];
+      if (key < keys[slot]) {
+        keys[slot] = key;
+        siftUp(slot);
+      }
+    } else {
+      nodes[size] = node;
+      keys[size] = key;
+      slots[node] = size;
+      size++;
+      siftUp(size - 1);
+    }
+  }
+
+  /**
+   * Returns the key of the node with the lowest key, without removing it.
+   *
+   * @return the lowest key in this heap
+   * @throws NoSuchElementException if this heap is empty
+   */
+  public double peekKey() {
+    if (size == 0)
+      throw new NoSuchElementException("Heap is empty");
+    return keys[0];
+  }
+
+  /**
+   * Removes and returns the node with the lowest key.
+   *
+   * @return the id of that node
+   * @throws NoSuchElementException if this heap is empty
+   */
+  public int poll() {
+    if (size == 0)
+      throw new NoSuchElementException("Heap is empty");
+    int top = nodes[0];
+    size--;
+    if (size > 0) {
+      nodes[0] = nodes[size];
+      keys[0] = keys[size];
+      slots[nodes[0]] = 0;
+      siftDown(0);
+    }
+    // point the removed node at a slot that can never pass contains()
+    slots[top] = Integer.MAX_VALUE;
+    return top;
+  }
+
+  // moves the entry in slot up until its parent's key is not larger
+  private void siftUp(int slot) {
+    int node = nodes[slot];
+    double key = keys[slot];
+    while (slot > 0) {
+      int parent = (slot - 1) / ARITY;
+      if (keys[parent] <= key)
+        break;
+      nodes[slot] = nodes[parent];
+      keys[slot] = keys[parent];
+      slots[nodes[slot]] = slot;
+      slot = parent;
+    }
+    nodes[slot] = node;
+    keys[slot] = key;
+    slots[node] = slot;
+  }
+
+  // moves the entry in slot down until none of its children has a smaller key
+  private void siftDown(int slot) {
+    int node = nodes[slot];
+    double key = keys[slot];
+    while (true) {
+      int first = slot * ARITY + 1;
+      if (first >= size)
+        break;
+      // find the child with the smallest key
+      int smallest = first;
+      int last = Math.min(first + ARITY, size);
+      for (int child = first + 1; child < last; child++)
+        if (keys[child] < keys[smallest])
+          smallest = child;
+      if (keys[smallest] >= key)
+        break;
+      nodes[slot] = nodes[smallest];
+      keys[slot] = keys[smallest];
+      slots[nodes[slot]] = slot;
+      slot = smallest;
+    }
+    nodes[slot] = node;
+    keys[slot] = key;
+    slots[node] = slot;
+  }
+
+}
@@ -0,0 +1,225 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * This JsonWriter class writes JSON text straight to a stream as it is
+ * produced, without building a tree of objects or a String of the whole
+ * document first.  Objects and arrays are opened and closed with
+ * beginObject/endObject and beginArray/endArray, members are named with
+ * name(), and the commas between values are written automatically.
+ *
+ * Doubles that are infinite or NaN have no JSON form, so they are written
+ * as null.  The writer does not check that names and values are in valid
+ * places, so callers must write them in a sensible order.
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+  // the most objects and arrays that may be open at once
+  private static final int MAX_DEPTH = 64;
+
+  private final Writer out;
+  // for each open object or array: whether nothing has been written in it yet
+  private final boolean[] empty = new boolean[MAX_DEPTH];
+  private int depth = 0;
+  // true right after a name, when the next value needs no comma before it
+  private boolean afterName = false;
+
+  /**
+   * Constructor for a writer that writes UTF-8 to out through a buffer.
+   *
+   * @param out the stream to write to, which is closed along with this
+   */
+  public JsonWriter(OutputStream out) {
+    this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Constructor for a writer that writes to out.  The writer should be
+   * buffered, since JSON is written to it a few characters at a time.
+   *
+   * @param out the writer to write to, which is closed along with this
+   */
+  public JsonWriter(Writer out) {
+    this.out = out;
+  }
+
+  public JsonWriter beginObject() throws IOException {
+    return open('{');
+  }
+
+  public JsonWriter endObject() throws IOException {
+    return close('}');
+  }
+
+  public JsonWriter beginArray() throws IOException {
+    return open('[');
+  }
+
+  public JsonWriter endArray() throws IOException {
+    return close(']');
+  }
+
+  /**
+   * Writes the name of the next member of the current object.
+   *
+   * @param name the member's name
+   * @return this writer
+   * @throws IOException if the stream cannot be written to
+   */
+  public JsonWriter name(String name) throws IOException {
+    separate();
+    string(name);
+    out.write(':');
+    afterName = true;
+    return this;
+  }
+
+  /**
+   * Writes a string value, or null when value is null.
+   *
+   * @param value the string to write
+   * @return this writer
+   * @throws IOException if the stream cannot be written to
+   */
+  public JsonWriter value(String value) throws IOException {
+    separate();
+    if (value == null)
+      out.write("null");
+    else
+      string(value);
+    return this;
+  }
+
+  /**
+   * Writes a number, or null when value is infinite or NaN.
+   *
+   * @param value the number to write
+   * @return this writer
+   * @throws IOException if the stream cannot be written to
+   */
+  public JsonWriter value(double value) throws IOException {
+    separate();
+    if (Double.isNaN(value) || Double.isInfinite(value))
+      out.write("null");
+    else
+      out.write(Double.toString(value));
+    return this;
+  }
+
+  public JsonWriter value(long value) throws IOException {
+    separate();
+    out.write(Long.toString(value));
+    return this;
+  }
+
+  public JsonWriter value(boolean value) throws IOException {
+    separate();
+    out.write(value ? "true" : "false");
+    return this;
+  }
+
+  public JsonWriter nullValue() throws IOException {
+    separate();
+    out.write("null");
+    return this;
+  }
+
+  /**
+   * Writes an array of strings.
+   *
+   * @param values the strings to write
+   * @return this writer
+   * @throws IOException if the stream cannot be written to
+   */
+  public JsonWriter stringArray(List<String> values) throws IOException {
+    beginArray();
+    for (String value : values)
+      value(value);
+    return endArray();
+  }
+
+  /**
+   * Writes an array of numbers.
+   *
+   * @param values the numbers to write
+   * @return this writer
+   * @throws IOException if the stream cannot be written to
+   */
+  public JsonWriter numberArray(List<Double> values) throws IOException {
+    beginArray();
+    for (double value : values)
+      value(value);
+    return endArray();
+  }
+
+  private JsonWriter open(char bracket) throws IOException {
+    if (depth == MAX_DEPTH)
+      throw new IllegalStateException("JSON is nested too deeply");
+    separate();
+    out.write(bracket);
+    empty[depth++] = true;
+    return this;
+  }
+
+  private JsonWriter close(char bracket) throws IOException {
+    if (depth == 0)
+      throw new IllegalStateException("No object or array is open");
+    depth--;
+    out.write(bracket);
+    return this;
+  }
+
+  // writes the comma before a value or name that follows another one
+  private void separate() throws IOException {
+    if (afterName) {
+      afterName = false;
+      return;
+    }
+    if (depth > 0) {
+      if (!empty[depth - 1])
+        out.write(',');
+      empty[depth - 1] = false;
+    }
+  }
+
+  // writes text as a quoted string, escaping the characters JSON requires
+  private void string(String text) throws IOException {
+    out.write('"');
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\')
+        continue;
+      out.write(text, start, i - start);
+      switch (c) {
+        case '"': out.write("\\\""); break;
+        case '\\': out.write("\\\\"); break;
+        case '\n': out.write("\\n"); break;
+        case '\r': out.write("\\r"); break;
+        case '\t': out.write("\\t"); break;
+        default: out.write(String.format("\\u%04x", (int) c));
+      }
+      start = i + 1;
+    }
+    out.write(text, start, text.length() - start);
+    out.write('"');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+}
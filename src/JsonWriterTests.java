@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class JsonWriterTests {
+
+  // tests commas, nesting, escaping, and numbers without a JSON form
+  @Test
+  public void testWritesValidJson() throws IOException {
+    StringWriter text = new StringWriter();
+    JsonWriter json = new JsonWriter(text);
+    json.beginObject();
+    json.name("name").value("Say \"hi\"\\\n\u0001\u00e9");
+    json.name("empty").beginArray().endArray();
+    json.name("numbers").beginArray().value(1.5).value(2.0).value(-3L)
+            .value(Double.POSITIVE_INFINITY).value(Double.NaN).endArray();
+    json.name("nested").beginArray().beginObject().name("ok").value(true).endObject()
+            .beginObject().endObject().nullValue().value((String) null).endArray();
+    json.endObject();
+    json.flush();
+    Assertions.assertEquals("{\"name\":\"Say \\\"hi\\\"\\\\\\n\\u0001\u00e9\",\"empty\":[],"
+            + "\"numbers\":[1.5,2.0,-3,null,null],"
+            + "\"nested\":[{\"ok\":true},{},null,null]}", text.toString());
+    Assertions.assertThrows(IllegalStateException.class, json::endObject);
+  }
+
+  // tests the route and meeting point objects that the WebApp's JSON API
+  // writes, streamed as UTF-8 bytes
+  @Test
+  public void testRouteAndMeetingPoint() throws IOException {
+    Backend backend = new Backend(new DijkstraGraph<>());
+    backend.loadGraphData("campus.dot");
+    Route<String> route = backend.findShortestRoute("Memorial Union", "Union South");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonWriter json = new JsonWriter(bytes)) {
+      WebApp.writeRouteJson(json, route);
+    }
+    StringBuilder expected = new StringBuilder("{\"locations\":[");
+    for (int i = 0; i < route.getLocations().size(); i++)
+      expected.append(i > 0 ? "," : "").append('"').append(route.getLocations().get(i)).append('"');
+    expected.append("],\"times\":[");
+    for (int i = 0; i < route.getLegCount(); i++)
+      expected.append(i > 0 ? "," : "").append(route.getLegCost(i));
+    expected.append("],\"totalTime\":").append(route.getTotalCost()).append('}');
+    Assertions.assertEquals(expected.toString(), bytes.toString(StandardCharsets.UTF_8));
+
+    List<String> starts = List.of("Memorial Union", "Atmospheric, Oceanic and Space Sciences");
+    String destination = backend.getClosestDestinationFromAll(starts);
+    double[][] times = backend.computeTravelTimeMatrix(starts, List.of(destination));
+    StringWriter text = new StringWriter();
+    WebApp.writeMeetingPointJson(new JsonWriter(text), starts, destination, times);
+    Assertions.assertEquals("{\"from\":[\"Memorial Union\","
+            + "\"Atmospheric, Oceanic and Space Sciences\"],\"destination\":\"" + destination
+            + "\",\"times\":[" + times[0][0] + "," + times[1][0] + "],\"totalTime\":"
+            + (times[0][0] + times[1][0]) + "}", text.toString());
+  }
+
+}
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * This LandmarkIndex class holds the precomputed tables for A* search with
+ * landmarks and the triangle inequality (ALT).  A few landmark nodes are
+ * chosen far apart from each other, and the distance from each landmark to
+ * every node and from every node back to each landmark is stored.  For any
+ * landmark L, the triangle inequality then bounds the distance from v to t
+ * from below by both d(L,t) - d(L,v) and d(v,L) - d(t,L).
+ *
+ * The campus graph has no coordinates, so these bounds take the place of a
+ * straight line distance heuristic.  Distances are stored as floats, grouped
+ * by node so that the bounds for one node are next to each other in memory.
+ * Each bound is lowered by the largest possible float rounding error, so it
+ * never overestimates the real distance.
+ *
+ * The full shortest path trees to and from each landmark are kept as well,
+ * so that the tables can be repaired when an edge weight changes instead of
+ * being rebuilt.
+ */
+public class LandmarkIndex {
+
+  private final int nodeCount;
+  private final int[] landmarks;
+  // distance from landmark l to node v is at fromLandmark[v * count + l]
+  private final float[] fromLandmark;
+  // distance from node v to landmark l is at toLandmark[v * count + l]
+  private final float[] toLandmark;
+  // the largest error that float rounding can add to a difference of two
+  // table entries
+  private final double slack;
+  // the trees the tables were copied from: from each landmark over forward
+  // edges, and to each landmark over reverse edges
+  private final ShortestPathTree[] fromTrees;
+  private final ShortestPathTree[] toTrees;
+
+  private LandmarkIndex(int nodeCount, int[] landmarks, float[] fromLandmark,
+                        float[] toLandmark, double slack,
+                        ShortestPathTree[] fromTrees, ShortestPathTree[] toTrees) {
+    this.nodeCount = nodeCount;
+    this.landmarks = landmarks;
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = toLandmark;
+    this.slack = slack;
+    this.fromTrees = fromTrees;
+    this.toTrees = toTrees;
+  }
+
+  /**
+   * Chooses up to count landmarks in graph and computes their distance
+   * tables.  The first landmark is the node farthest from node 0, and each
+   * later landmark is the node whose round trip to the closest landmark
+   * chosen so far is longest.  Nodes that no chosen landmark can reach (or
+   * be reached from) are preferred, so every part of the graph gets covered.
+   *
+   * @param graph the graph to build the tables for
+   * @param count the number of landmarks to choose
+   * @return the landmark tables for graph
+   */
+  public static LandmarkIndex build(CompactGraph<?> graph, int count) {
+    int n = graph.getNodeCount();
+    count = Math.max(0, Math.min(count, n));
+    int[] landmarks = new int[count];
+    float[] fromLandmark = new float[n * count];
+    float[] toLandmark = new float[n * count];
+    ShortestPathTree[] fromTrees = new ShortestPathTree[count];
+    ShortestPathTree[] toTrees = new ShortestPathTree[count];
+    double[] coverage = new double[n];
+    Arrays.fill(coverage, Double.POSITIVE_INFINITY);
+    double longest = 0;
+
+    int next = count > 0 ? farthestFrom(graph, 0) : -1;
+    for (int l = 0; l < count; l++) {
+      landmarks[l] = next;
+      fromTrees[l] = ShortestPathTree.build(graph, next, false);
+      toTrees[l] = ShortestPathTree.build(graph, next, true);
+      copyColumn(fromTrees[l], fromLandmark, l, count);
+      copyColumn(toTrees[l], toLandmark, l, count);
+
+      // choose the least covered node as the next landmark
+      next = -1;
+      for (int v = 0; v < n; v++) {
+        double roundTrip = (double) fromLandmark[v * count + l] + toLandmark[v * count + l];
+        if (fromLandmark[v * count + l] < Float.POSITIVE_INFINITY)
+          longest = Math.max(longest, fromLandmark[v * count + l]);
+        if (toLandmark[v * count + l] < Float.POSITIVE_INFINITY)
+          longest = Math.max(longest, toLandmark[v * count + l]);
+        coverage[v] = Math.min(coverage[v], roundTrip);
+        if (next == -1 || coverage[v] > coverage[next])
+          next = v;
+      }
+    }
+    return new LandmarkIndex(n, landmarks, fromLandmark, toLandmark,
+            2 * Math.ulp((float) longest), fromTrees, toTrees);
+  }
+
+  // copies the distances in tree into the column of table for landmark l,
+  // and returns the longest finite one
+  private static double copyColumn(ShortestPathTree tree, float[] table, int l, int count) {
+    double longest = 0;
+    for (int v = 0; v < tree.getNodeCount(); v++) {
+      table[v * count + l] = (float) tree.cost(v);
+      if (tree.cost(v) < Double.POSITIVE_INFINITY)
+        longest = Math.max(longest, tree.cost(v));
+    }
+    return longest;
+  }
+
+  /**
+   * Returns these tables updated for one changed edge weight.  Only the
+   * landmarks whose trees the change affects are repaired, and the tables
+   * are copied (leaving these ones unchanged for searches still using them)
+   * only when at least one landmark is affected.  The same landmarks are
+   * kept, even though they might no longer be the best choice.
+   *
+   * @param repair the change to repair the tables for
+   * @return tables that are correct for the changed graph
+   */
+  public LandmarkIndex repaired(ShortestPathRepair repair) {
+    int count = landmarks.length;
+    ShortestPathTree[] newFromTrees = fromTrees.clone();
+    ShortestPathTree[] newToTrees = toTrees.clone();
+    float[] newFromLandmark = fromLandmark;
+    float[] newToLandmark = toLandmark;
+    double newSlack = slack;
+    for (int l = 0; l < count; l++) {
+      newFromTrees[l] = fromTrees[l].repaired(repair, false);
+      if (newFromTrees[l] != fromTrees[l]) {
+        if (newFromLandmark == fromLandmark)
+          newFromLandmark = fromLandmark.clone();
+        double longest = copyColumn(newFromTrees[l], newFromLandmark, l, count);
+        newSlack = Math.max(newSlack, 2 * Math.ulp((float) longest));
+      }
+      newToTrees[l] = toTrees[l].repaired(repair, true);
+      if (newToTrees[l] != toTrees[l]) {
+        if (newToLandmark == toLandmark)
+          newToLandmark = toLandmark.clone();
+        double longest = copyColumn(newToTrees[l], newToLandmark, l, count);
+        newSlack = Math.max(newSlack, 2 * Math.ulp((float) longest));
+      }
+    }
+    if (newFromLandmark == fromLandmark && newToLandmark == toLandmark)
+      return this;
+    return new LandmarkIndex(nodeCount, landmarks, newFromLandmark, newToLandmark, newSlack,
+            newFromTrees, newToTrees);
+  }
+
+  // returns the node with the longest shortest path from start
+  private static int farthestFrom(CompactGraph<?> graph, int start) {
+    SearchSpace space = graph.sweep(start, false);
+    int farthest = start;
+    for (int v = 0; v < graph.getNodeCount(); v++)
+      if (space.dist(v) < Double.POSITIVE_INFINITY && space.dist(v) > space.dist(farthest))
+        farthest = v;
+    return farthest;
+  }
+
+  /**
+   * Returns a lower bound on the cost of the shortest path from node to
+   * target, or infinity when the tables prove that there is no such path.
+   *
+   * @param node   the id of the node to estimate from
+   * @param target the id of the node to estimate to
+   * @return a cost that is never more than the real shortest path cost
+   */
+  public double lowerBound(int node, int target) {
+    int count = landmarks.length;
+    double bound = 0;
+    for (int l = 0; l < count; l++) {
+      float fromToTarget = fromLandmark[target * count + l];
+      float fromToNode = fromLandmark[node * count + l];
+      float nodeToLandmark = toLandmark[node * count + l];
+      float targetToLandmark = toLandmark[target * count + l];
+
+      // a landmark that reaches node but not target shows node cannot reach
+      // target, and so does a landmark reachable from target but not node
+      if ((fromToTarget == Float.POSITIVE_INFINITY && fromToNode < Float.POSITIVE_INFINITY)
+              || (nodeToLandmark == Float.POSITIVE_INFINITY
+              && targetToLandmark < Float.POSITIVE_INFINITY))
+        return Double.POSITIVE_INFINITY;
+      if (fromToNode < Float.POSITIVE_INFINITY)
+        bound = Math.max(bound, (double) fromToTarget - fromToNode);
+      if (targetToLandmark < Float.POSITIVE_INFINITY)
+        bound = Math.max(bound, (double) nodeToLandmark - targetToLandmark);
+    }
+    return Math.max(0, bound - slack);
+  }
+
+  /**
+   * Returns the ids of the chosen landmarks.
+   *
+   * @return a copy of the landmark ids
+   */
+  public int[] getLandmarks() {
+    return landmarks.clone();
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+}
@@ -0,0 +1,133 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This LatencyHistogram class counts recorded values (usually durations in
+ * nanoseconds) in buckets whose width grows with the values they hold, in
+ * the way of HdrHistogram: each power of two is split into 8 equal buckets,
+ * so any recorded value is known to within 12.5%, from 1 up to
+ * Long.MAX_VALUE, with only 488 counters.
+ *
+ * Recording is lock-free: it finds the bucket with a few bit operations and
+ * increments one counter of an AtomicLongArray, so many threads can record
+ * at once without waiting on each other.  Quantiles are read from a copy of
+ * the counters, which may miss values recorded while it is being made.
+ */
+public class LatencyHistogram {
+
+  // each power of two is split into 2^SUB_BITS buckets
+  private static final int SUB_BITS = 3;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * Records one value.  Negative values are recorded as 0.
+   *
+   * @param value the value to record
+   */
+  public void record(long value) {
+    if (value < 0)
+      value = 0;
+    counts.incrementAndGet(bucketOf(value));
+    sum.add(value);
+  }
+
+  // returns the bucket that holds value: values below SUB_COUNT each have
+  // their own bucket, and above that the bucket is chosen by the position
+  // of the highest set bit and the SUB_BITS bits after it
+  static int bucketOf(long value) {
+    if (value < SUB_COUNT)
+      return (int) value;
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    return (exponent - SUB_BITS + 1) * SUB_COUNT
+            + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1));
+  }
+
+  // returns the smallest value that goes into bucket
+  static long lowestValueIn(int bucket) {
+    if (bucket < SUB_COUNT)
+      return bucket;
+    int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+    return (long) (SUB_COUNT + bucket % SUB_COUNT) << (exponent - SUB_BITS);
+  }
+
+  // returns the largest value that goes into bucket
+  static long highestValueIn(int bucket) {
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValueIn(bucket + 1) - 1;
+  }
+
+  /**
+   * Takes a copy of the counters, from which quantiles can be read.
+   *
+   * @return the copy
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new Snapshot(copy, count, sum.sum());
+  }
+
+  /**
+   * The counters of a histogram at one moment.
+   */
+  public static class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    private Snapshot(long[] counts, long count, long sum) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getSum() {
+      return sum;
+    }
+
+    /**
+     * Returns a value that at least the fraction q of the recorded values
+     * are at or below: the highest value of the bucket that the q quantile
+     * falls in, so it overestimates by at most 12.5%.
+     *
+     * @param q the quantile, from 0 to 1
+     * @return that value, or 0 when nothing was recorded
+     */
+    public long quantile(double q) {
+      if (count == 0)
+        return 0;
+      long rank = Math.max(1, (long) Math.ceil(q * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank)
+          return highestValueIn(i);
+      }
+      return highestValueIn(counts.length - 1);
+    }
+
+    /**
+     * Returns the highest value recorded, to within its bucket.
+     *
+     * @return that value, or 0 when nothing was recorded
+     */
+    public long max() {
+      for (int i = counts.length - 1; i >= 0; i--)
+        if (counts[i] > 0)
+          return highestValueIn(i);
+      return 0;
+    }
+  }
+
+}
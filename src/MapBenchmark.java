@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the chained HashtableMap with the OpenHashMap on the lookups a
+ * graph makes: mapping node names to nodes.  The names come from campus.dot,
+ * and are padded out with generated names to also show a larger graph.
+ *
+ * Run with: java MapBenchmark [dotFile]
+ */
+public class MapBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    String file = args.length > 0 ? args[0] : "./campus.dot";
+    List<String> campus = readNodeNames(file);
+    List<String> large = new ArrayList<>(campus);
+    for (int i = 0; large.size() < 100000; i++)
+      large.add("Building " + i);
+    run(campus);
+    run(large);
+  }
+
+  /**
+   * Collects every quoted name in a dot file, in order of first appearance.
+   *
+   * @param file the dot file to read
+   * @return the node names in that file
+   * @throws IOException if the file cannot be read
+   */
+  public static List<String> readNodeNames(String file) throws IOException {
+    Set<String> names = new LinkedHashSet<>();
+    Matcher matcher = Pattern.compile("\"([^\"]*)\"").matcher(Files.readString(Paths.get(file)));
+    while (matcher.find())
+      names.add(matcher.group(1));
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * Benchmarks each map on filling it with names, looking each name up, and
+   * looking up names that are missing.
+   *
+   * @param names the keys to use
+   */
+  public static void run(List<String> names) {
+    System.out.println("maps with " + names.size() + " node names:");
+    run("HashtableMap", HashtableMap::new, names);
+    run("OpenHashMap", OpenHashMap::new, names);
+  }
+
+  private static void run(String label, Supplier<MapADT<String, Integer>> factory,
+                          List<String> names) {
+    List<String> missing = new ArrayList<>(names.size());
+    for (String name : names)
+      missing.add(name + "?");
+    MapADT<String, Integer> filled = factory.get();
+    for (int i = 0; i < names.size(); i++)
+      filled.put(names.get(i), i);
+
+    Benchmark.run(label + " put", names.size(), () -> {
+      MapADT<String, Integer> map = factory.get();
+      for (int i = 0; i < names.size(); i++)
+        map.put(names.get(i), i);
+      return map.getSize();
+    });
+    Benchmark.run(label + " get", names.size(), () -> {
+      long sum = 0;
+      for (String name : names)
+        sum += filled.get(name);
+      return sum;
+    });
+    Benchmark.run(label + " containsKey (missing)", names.size(), () -> {
+      long found = 0;
+      for (String name : missing)
+        if (filled.containsKey(name))
+          found++;
+      return found;
+    });
+  }
+
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This MeasuredBackend class wraps another BackendInterface and records, in
+ * a Metrics registry, how long each shortest path query takes, along with
+ * how many nodes its search settled and how many nodes it queued at once.
+ * Queries answered from a table or a cache are recorded as settling none.
+ * It can also record how many edges each search relaxed, which are counted
+ * by a SearchCounter observing it.  That slows searches down by calling the
+ * counter on every step, so it is off unless asked for.
+ * Meeting point and matrix queries run many searches in parallel, so only
+ * their time is recorded.
+ *
+ * Each thread also adds up the time its own queries took, so that a caller
+ * can tell how much of a request was spent searching rather than rendering.
+ */
+public class MeasuredBackend implements BackendInterface {
+
+  private final BackendInterface backend;
+  private final LatencyHistogram searchTime;
+  private final LatencyHistogram settledNodes;
+  private final LatencyHistogram queueSize;
+  // null unless relaxed edges are counted
+  private final LatencyHistogram relaxedEdges;
+
+  // time that queries on each thread took since takeSearchNanos was last
+  // called on that thread
+  private static final ThreadLocal<long[]> searchNanos =
+          ThreadLocal.withInitial(() -> new long[1]);
+  // counts the steps of the searches on each thread
+  private static final ThreadLocal<SearchCounter> counters =
+          ThreadLocal.withInitial(SearchCounter::new);
+
+  /**
+   * Constructor for a backend that measures the queries it passes on,
+   * without counting relaxed edges.
+   *
+   * @param backend the backend that answers the queries
+   * @param metrics where to record the measurements
+   */
+  public MeasuredBackend(BackendInterface backend, Metrics metrics) {
+    this(backend, metrics, false);
+  }
+
+  /**
+   * Constructor for a backend that measures the queries it passes on.
+   *
+   * @param backend           the backend that answers the queries
+   * @param metrics           where to record the measurements
+   * @param countRelaxedEdges true to observe each search and record the
+   *                          edges it relaxed in campus_search_relaxed_edges
+   */
+  public MeasuredBackend(BackendInterface backend, Metrics metrics, boolean countRelaxedEdges) {
+    this.backend = backend;
+    searchTime = metrics.histogram("campus_phase_duration_seconds",
+            "Time spent in each phase of loading and answering requests", 1e-9,
+            "phase", "search");
+    settledNodes = metrics.histogram("campus_search_settled_nodes",
+            "Nodes settled by each shortest path query", 1);
+    queueSize = metrics.histogram("campus_search_max_queue_size",
+            "Most nodes queued at once by each shortest path query", 1);
+    relaxedEdges = countRelaxedEdges ? metrics.histogram("campus_search_relaxed_edges",
+            "Edges relaxed by each shortest path query", 1) : null;
+  }
+
+  /**
+   * Returns the time that queries on the calling thread took since this
+   * was last called on it, and starts adding up from zero again.
+   *
+   * @return that time in nanoseconds
+   */
+  public static long takeSearchNanos() {
+    long[] total = searchNanos.get();
+    long nanos = total[0];
+    total[0] = 0;
+    return nanos;
+  }
+
+  // clears the last search's statistics, so that a query answered without
+  // searching is not reported with an earlier search's numbers
+  private long startQuery() {
+    CompactGraph.clearSearchStatistics();
+    if (relaxedEdges != null) {
+      SearchCounter counter = counters.get();
+      counter.reset();
+      SearchSpace.observe(counter);
+    }
+    return System.nanoTime();
+  }
+
+  // records a query's time, and the statistics of its search when it ran
+  // a single search on this thread
+  private void endQuery(long start, boolean singleSearch) {
+    long nanos = System.nanoTime() - start;
+    if (relaxedEdges != null)
+      SearchSpace.observe(SearchObserver.NONE);
+    searchTime.record(nanos);
+    searchNanos.get()[0] += nanos;
+    if (singleSearch) {
+      settledNodes.record(CompactGraph.getLastSettledCount());
+      queueSize.record(CompactGraph.getLastMaxQueueSize());
+      if (relaxedEdges != null)
+        relaxedEdges.record(counters.get().getRelaxedCount());
+    }
+  }
+
+  @Override
+  public void loadGraphData(String filename) throws IOException {
+    backend.loadGraphData(filename);
+  }
+
+  @Override
+  public List<String> getListOfAllLocations() {
+    return backend.getListOfAllLocations();
+  }
+
+  @Override
+  public boolean containsLocation(String location) {
+    return backend.containsLocation(location);
+  }
+
+  @Override
+  public List<String> findLocationsOnShortestPath(String startLocation, String endLocation) {
+    long start = startQuery();
+    try {
+      return backend.findLocationsOnShortestPath(startLocation, endLocation);
+    } finally {
+      endQuery(start, true);
+    }
+  }
+
+  @Override
+  public List<Double> findTimesOnShortestPath(String startLocation, String endLocation) {
+    long start = startQuery();
+    try {
+      return backend.findTimesOnShortestPath(startLocation, endLocation);
+    } finally {
+      endQuery(start, true);
+    }
+  }
+
+  @Override
+  public Route<String> findShortestRoute(String startLocation, String endLocation) {
+    long start = startQuery();
+    try {
+      return backend.findShortestRoute(startLocation, endLocation);
+    } finally {
+      endQuery(start, true);
+    }
+  }
+
+  @Override
+  public String getClosestDestinationFromAll(List<String> startLocations)
+          throws NoSuchElementException {
+    long start = startQuery();
+    try {
+      return backend.getClosestDestinationFromAll(startLocations);
+    } finally {
+      endQuery(start, false);
+    }
+  }
+
+  @Override
+  public double[][] computeTravelTimeMatrix(List<String> sources, List<String> targets)
+          throws NoSuchElementException {
+    long start = startQuery();
+    try {
+      return backend.computeTravelTimeMatrix(sources, targets);
+    } finally {
+      endQuery(start, false);
+    }
+  }
+
+}
@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This Metrics class keeps named counters and histograms, and writes them in
+ * the Prometheus text format.  Each metric is a family of series told apart
+ * by their labels, such as requests by endpoint.
+ *
+ * Looking a series up builds its label string, so callers should look each
+ * series up once and keep the LongAdder or LatencyHistogram they get back;
+ * recording to those is lock-free and allocates nothing.  Histograms are
+ * written as Prometheus summaries, with the 0.5, 0.9, 0.99 and 0.999
+ * quantiles, a sum, and a count.
+ */
+public class Metrics {
+
+  // quantiles written for each histogram
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  // one metric name, with its help text and its series by label string
+  private static class Family {
+    final String help;
+    final boolean isCounter;
+    // values are multiplied by this when written, e.g. 1e-9 for nanoseconds
+    // written as seconds
+    final double scale;
+    final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+    Family(String help, boolean isCounter, double scale) {
+      this.help = help;
+      this.isCounter = isCounter;
+      this.scale = scale;
+    }
+  }
+
+  // metric families by name, kept sorted so they are always written in the
+  // same order
+  private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+  /**
+   * Returns the counter with the provided name and labels, creating it the
+   * first time.  By Prometheus convention, counter names end in _total.
+   *
+   * @param name   the metric name
+   * @param help   a description of the metric
+   * @param labels alternating label names and values
+   * @return the counter to increment
+   */
+  public LongAdder counter(String name, String help, String... labels) {
+    return (LongAdder) series(name, help, true, 1, labels);
+  }
+
+  /**
+   * Returns the histogram with the provided name and labels, creating it
+   * the first time.
+   *
+   * @param name   the metric name
+   * @param help   a description of the metric
+   * @param scale  what recorded values are multiplied by when written, e.g.
+   *               1e-9 to record nanoseconds and write seconds
+   * @param labels alternating label names and values
+   * @return the histogram to record values in
+   */
+  public LatencyHistogram histogram(String name, String help, double scale, String... labels) {
+    return (LatencyHistogram) series(name, help, false, scale, labels);
+  }
+
+  private Object series(String name, String help, boolean isCounter, double scale,
+                        String... labels) {
+    if (labels.length % 2 != 0)
+      throw new IllegalArgumentException("labels must be name and value pairs");
+    StringBuilder key = new StringBuilder();
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0)
+        key.append(',');
+      key.append(labels[i]).append("=\"");
+      escape(key, labels[i + 1]);
+      key.append('"');
+    }
+    String labelString = key.toString();
+    Family family = families.computeIfAbsent(name, n -> new Family(help, isCounter, scale));
+    if (family.isCounter != isCounter)
+      throw new IllegalArgumentException(name + " is already a different kind of metric");
+    return family.series.computeIfAbsent(labelString,
+            l -> isCounter ? new LongAdder() : new LatencyHistogram());
+  }
+
+  // escapes a label value the way the Prometheus text format requires
+  private static void escape(StringBuilder out, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' || c == '"')
+        out.append('\\').append(c);
+      else if (c == '\n')
+        out.append("\\n");
+      else
+        out.append(c);
+    }
+  }
+
+  /**
+   * Writes every metric in the Prometheus text exposition format.
+   *
+   * @param out where to write the metrics
+   * @throws IOException if out cannot be written to
+   */
+  public void writePrometheus(Writer out) throws IOException {
+    for (Map.Entry<String, Family> entry : families.entrySet()) {
+      String name = entry.getKey();
+      Family family = entry.getValue();
+      out.write("# HELP " + name + " " + family.help + "\n");
+      out.write("# TYPE " + name + (family.isCounter ? " counter\n" : " summary\n"));
+      for (Map.Entry<String, Object> series : family.series.entrySet()) {
+        String labels = series.getKey();
+        if (family.isCounter) {
+          writeSample(out, name, labels, null, ((LongAdder) series.getValue()).sum());
+          continue;
+        }
+        LatencyHistogram.Snapshot snapshot = ((LatencyHistogram) series.getValue()).snapshot();
+        for (double q : QUANTILES)
+          writeSample(out, name, labels, "quantile=\"" + q + "\"",
+                  snapshot.quantile(q) * family.scale);
+        writeSample(out, name + "_sum", labels, null, snapshot.getSum() * family.scale);
+        writeSample(out, name + "_count", labels, null, snapshot.getCount());
+      }
+    }
+  }
+
+  private static void writeSample(Writer out, String name, String labels, String extraLabel,
+                                  double value) throws IOException {
+    out.write(name);
+    if (!labels.isEmpty() || extraLabel != null) {
+      out.write('{');
+      out.write(labels);
+      if (extraLabel != null)
+        out.write((labels.isEmpty() ? "" : ",") + extraLabel);
+      out.write('}');
+    }
+    out.write(' ');
+    out.write(value == (long) value ? Long.toString((long) value) : Double.toString(value));
+    out.write('\n');
+  }
+
+}
@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricsTests {
+
+  // tests that every value falls in a bucket that holds it, and that
+  // quantiles are within a bucket (12.5%) of the exact values
+  @Test
+  public void testHistogramBucketsAndQuantiles() {
+    long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      Assertions.assertTrue(LatencyHistogram.lowestValueIn(bucket) <= value);
+      Assertions.assertTrue(value <= LatencyHistogram.highestValueIn(bucket));
+    }
+    Assertions.assertEquals(Long.MAX_VALUE,
+            LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    Assertions.assertEquals(0, histogram.snapshot().quantile(0.5));
+    for (int i = 1; i <= 1000; i++)
+      histogram.record(i);
+    histogram.record(-5);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    Assertions.assertEquals(1001, snapshot.getCount());
+    Assertions.assertEquals(500500, snapshot.getSum());
+    Assertions.assertEquals(0, snapshot.quantile(0));
+    for (double q : new double[] {0.5, 0.9, 0.99, 1}) {
+      long exact = (long) Math.ceil(q * 1001) - 1;
+      long quantile = snapshot.quantile(q);
+      Assertions.assertTrue(quantile >= exact && quantile <= exact * 1.125, q + ": " + quantile);
+    }
+    Assertions.assertEquals(snapshot.quantile(1), snapshot.max());
+  }
+
+  // tests the Prometheus text format of counters and summaries
+  @Test
+  public void testPrometheusFormat() throws IOException {
+    Metrics metrics = new Metrics();
+    LongAdder ok = metrics.counter("requests_total", "Requests", "endpoint", "/", "code", "2xx");
+    ok.add(3);
+    Assertions.assertSame(ok, metrics.counter("requests_total", "Requests",
+            "endpoint", "/", "code", "2xx"));
+    metrics.counter("requests_total", "Requests", "endpoint", "a\"b\\", "code", "5xx")
+            .increment();
+    LatencyHistogram time = metrics.histogram("time_seconds", "Time", 1e-9);
+    time.record(4);
+    Assertions.assertThrows(IllegalArgumentException.class,
+            () -> metrics.histogram("requests_total", "Requests", 1));
+    Assertions.assertThrows(IllegalArgumentException.class,
+            () -> metrics.counter("other_total", "Other", "endpoint"));
+
+    StringWriter text = new StringWriter();
+    metrics.writePrometheus(text);
+    Assertions.assertEquals("# HELP requests_total Requests\n"
+            + "# TYPE requests_total counter\n"
+            + "requests_total{endpoint=\"/\",code=\"2xx\"} 3\n"
+            + "requests_total{endpoint=\"a\\\"b\\\\\",code=\"5xx\"} 1\n"
+            + "# HELP time_seconds Time\n"
+            + "# TYPE time_seconds summary\n"
+            + "time_seconds{quantile=\"0.5\"} 4.0E-9\n"
+            + "time_seconds{quantile=\"0.9\"} 4.0E-9\n"
+            + "time_seconds{quantile=\"0.99\"} 4.0E-9\n"
+            + "time_seconds{quantile=\"0.999\"} 4.0E-9\n"
+            + "time_seconds_sum 4.0E-9\n"
+            + "time_seconds_count 1\n", text.toString());
+  }
+
+  // tests that a MeasuredBackend passes queries on and records each one
+  @Test
+  public void testMeasuredBackend() throws IOException {
+    Metrics metrics = new Metrics();
+    Backend backend = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+    backend.setRouteCacheLimits(0, 0);
+    backend.loadGraphData("campus.dot");
+    BackendInterface measured = new MeasuredBackend(backend, metrics, true);
+    MeasuredBackend.takeSearchNanos();
+
+    Assertions.assertEquals(backend.findLocationsOnShortestPath("Memorial Union", "Union South"),
+            measured.findLocationsOnShortestPath("Memorial Union", "Union South"));
+    Assertions.assertTrue(MeasuredBackend.takeSearchNanos() > 0);
+    Assertions.assertEquals(0, MeasuredBackend.takeSearchNanos());
+
+    LatencyHistogram.Snapshot settled =
+            metrics.histogram("campus_search_settled_nodes", "", 1).snapshot();
+    Assertions.assertEquals(1, settled.getCount());
+    Assertions.assertTrue(settled.getSum() > 0);
+    Assertions.assertEquals(1, metrics.histogram("campus_phase_duration_seconds", "", 1e-9,
+            "phase", "search").snapshot().getCount());
+    Assertions.assertEquals(1, metrics.histogram("campus_search_max_queue_size", "", 1)
+            .snapshot().getCount());
+    LatencyHistogram.Snapshot relaxed =
+            metrics.histogram("campus_search_relaxed_edges", "", 1).snapshot();
+    Assertions.assertEquals(1, relaxed.getCount());
+    Assertions.assertTrue(relaxed.getSum() >= settled.getSum());
+
+    // relaxed edges are only counted when asked for
+    Metrics plainMetrics = new Metrics();
+    BackendInterface plain = new MeasuredBackend(backend, plainMetrics);
+    plain.findShortestRoute("Memorial Union", "Union South");
+    Assertions.assertEquals(1, plainMetrics.histogram("campus_search_settled_nodes", "", 1)
+            .snapshot().getCount());
+    StringWriter text = new StringWriter();
+    plainMetrics.writePrometheus(text);
+    Assertions.assertFalse(text.toString().contains("campus_search_relaxed_edges"));
+  }
+
+}
@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This OpenHashMap class is a MapADT that stores its keys and values directly
+ * in flat arrays, using open addressing with linear probing instead of a
+ * LinkedList per bucket.  Each key's hash is cached next to it, so probing
+ * only calls equals() on keys whose full hash matches, and a resize never
+ * calls hashCode() again.  Removal shifts later entries of the same probe
+ * run back into the hole, so no tombstones are left behind.
+ *
+ * Unlike get(), getOrDefault() signals a missing key with a return value
+ * instead of an exception, and each operation probes the table only once.
+ */
+public class OpenHashMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // the table is resized once it is more than this full
+  private static final double MAX_LOAD = 0.75;
+
+  // key, value, and cached hash in each slot; a slot is empty when its key
+  // is null
+  private Object[] keys;
+  private Object[] values;
+  private int[] hashes;
+  // capacity - 1, which maps a hash to a slot since capacity is a power of 2
+  private int mask;
+  private int size = 0;
+  // the list returned by getKeys(), or null when it must be rebuilt
+  private List<KeyType> keyList = null;
+
+  /**
+   * Constructor for a map with at least the provided capacity.
+   *
+   * @param capacity the number of slots, rounded up to a power of two
+   * @throws IllegalArgumentException if capacity is not positive
+   */
+  public OpenHashMap(int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be positive");
+    int slots = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    allocate(slots);
+  }
+
+  // default capacity for the map
+  public OpenHashMap() {
+    this(64);
+  }
+
+  private void allocate(int slots) {
+    keys = new Object[slots];
+    values = new Object[slots];
+    hashes = new int[slots];
+    mask = slots - 1;
+  }
+
+  // spreads the high bits of hashCode() into the low bits used for slots
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  // returns the slot holding key, or the empty slot where it would go
+  private int probe(Object key, int hash) {
+    int slot = hash & mask;
+    while (keys[slot] != null) {
+      if (hashes[slot] == hash && keys[slot].equals(key))
+        return slot;
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Adds a new key,value pair/mapping to this collection.
+   *
+   * @param key   the key of the key,value pair
+   * @param value the value that key maps to
+   * @throws IllegalArgumentException if key already maps to a value
+   * @throws NullPointerException     if key is null
+   */
+  @Override
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    if (key == null)
+      throw new NullPointerException("key cannot be null");
+    int hash = hash(key);
+    int slot = probe(key, hash);
+    if (keys[slot] != null)
+      throw new IllegalArgumentException("key already exists in the hashmap");
+    keys[slot] = key;
+    values[slot] = value;
+    hashes[slot] = hash;
+    size++;
+    keyList = null;
+    if (size > keys.length * MAX_LOAD)
+      resize();
+  }
+
+  // doubles the number of slots and reinserts every entry
+  private void resize() {
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    int[] oldHashes = hashes;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] == null)
+        continue;
+      int slot = oldHashes[i] & mask;
+      while (keys[slot] != null)
+        slot = (slot + 1) & mask;
+      keys[slot] = oldKeys[i];
+      values[slot] = oldValues[i];
+      hashes[slot] = oldHashes[i];
+    }
+  }
+
+  @Override
+  public boolean containsKey(KeyType key) {
+    if (key == null)
+      return false;
+    return keys[probe(key, hash(key))] != null;
+  }
+
+  /**
+   * Retrieves the specific value that a key maps to.
+   *
+   * @param key the key to look up
+   * @return the value that key maps to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    if (key != null) {
+      int slot = probe(key, hash(key));
+      if (keys[slot] != null)
+        return (ValueType) values[slot];
+    }
+    throw new NoSuchElementException("key is not in the hashmap");
+  }
+
+  /**
+   * Retrieves the value that a key maps to, without throwing when the key is
+   * missing.
+   *
+   * @param key          the key to look up
+   * @param defaultValue the value to return when key is not stored
+   * @return the value that key maps to, or defaultValue
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    if (key == null)
+      return defaultValue;
+    int slot = probe(key, hash(key));
+    return keys[slot] != null ? (ValueType) values[slot] : defaultValue;
+  }
+
+  /**
+   * Remove the mapping for a key from this collection.
+   *
+   * @param key the key whose mapping to remove
+   * @return the value that the removed key mapped to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) throws NoSuchElementException {
+    if (key == null)
+      throw new NoSuchElementException("key cannot be null.");
+    int hole = probe(key, hash(key));
+    if (keys[hole] == null)
+      throw new NoSuchElementException("key not found");
+    ValueType value = (ValueType) values[hole];
+
+    // shift back later entries whose home slot is at or before the hole, so
+    // that every entry stays reachable from its home slot
+    int slot = (hole + 1) & mask;
+    while (keys[slot] != null) {
+      int home = hashes[slot] & mask;
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        keys[hole] = keys[slot];
+        values[hole] = values[slot];
+        hashes[hole] = hashes[slot];
+        hole = slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[hole] = null;
+    values[hole] = null;
+    size--;
+    keyList = null;
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    allocate(keys.length);
+    size = 0;
+    keyList = null;
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public int getCapacity() {
+    return keys.length;
+  }
+
+  /**
+   * Retrieves this collection's keys.  The list is built once and shared
+   * until the next change to this map, so it cannot be modified.
+   *
+   * @return a read-only list of the keys in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<KeyType> getKeys() {
+    List<KeyType> list = keyList;
+    if (list == null) {
+      ArrayList<KeyType> newList = new ArrayList<>(size);
+      for (Object key : keys)
+        if (key != null)
+          newList.add((KeyType) key);
+      list = Collections.unmodifiableList(newList);
+      keyList = list;
+    }
+    return list;
+  }
+
+}
@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the OpenHashMap, which has to behave exactly like HashtableMap
+ * through the MapADT interface.
+ */
+public class OpenHashMapTests {
+
+  // put and get follow the MapADT contract for duplicate and missing keys
+  @Test
+  public void testPutAndGet() {
+    OpenHashMap<String, Integer> map = new OpenHashMap<>();
+    map.put("hi", 2);
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> map.put("hi", 3), "expected exception for duplicate key");
+    assertEquals("key already exists in the hashmap", exception.getMessage());
+    assertThrows(NullPointerException.class, () -> map.put(null, 1));
+    assertThrows(NoSuchElementException.class, () -> map.get("key"));
+    assertEquals(2, map.get("hi"));
+    assertEquals(1, map.getSize());
+  }
+
+  // getOrDefault returns the default instead of throwing
+  @Test
+  public void testGetOrDefault() {
+    OpenHashMap<String, Integer> map = new OpenHashMap<>();
+    map.put("testKey", 3);
+    assertEquals(3, map.getOrDefault("testKey", -1));
+    assertEquals(-1, map.getOrDefault("missing", -1));
+    assertNull(map.getOrDefault(null, null));
+    // the default method on MapADT gives the same answers
+    HashtableMap<String, Integer> chained = new HashtableMap<>();
+    chained.put("testKey", 3);
+    assertEquals(3, chained.getOrDefault("testKey", -1));
+    assertEquals(-1, chained.getOrDefault("missing", -1));
+  }
+
+  // remove, clear, and capacity behave like HashtableMap
+  @Test
+  public void testRemoveClearAndCapacity() {
+    OpenHashMap<String, Integer> map = new OpenHashMap<>();
+    map.put("testKey", 3);
+    map.put("testKey2", 5);
+    assertEquals(3, map.remove("testKey"));
+    assertThrows(NoSuchElementException.class, () -> map.remove("testKey"));
+    assertFalse(map.containsKey("testKey"));
+    assertTrue(map.containsKey("testKey2"));
+    assertEquals(1, map.getSize());
+    assertEquals(64, map.getCapacity());
+    map.clear();
+    assertEquals(0, map.getSize());
+    assertTrue(map.getKeys().isEmpty());
+    assertEquals(128, new OpenHashMap<String, String>(128).getCapacity());
+  }
+
+  // a long random mix of puts and removes, with many colliding keys, leaves
+  // the same mappings as java.util.HashMap
+  @Test
+  public void testMatchesHashMap() {
+    Random random = new Random(42);
+    OpenHashMap<Integer, Integer> map = new OpenHashMap<>(4);
+    HashMap<Integer, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 100000; i++) {
+      // multiples of 1024 all land in the same home slot of a small table
+      int key = random.nextInt(500) * (random.nextBoolean() ? 1 : 1024);
+      if (expected.containsKey(key)) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        expected.put(key, i);
+        map.put(key, i);
+      }
+      assertEquals(expected.size(), map.getSize());
+    }
+    for (int key = 0; key < 500 * 1024; key++)
+      assertEquals(expected.get(key), map.getOrDefault(key, null));
+    assertEquals(expected.keySet(), new HashSet<>(map.getKeys()));
+  }
+
+}
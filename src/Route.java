@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This Route class is the complete result of one shortest path search: the
+ * node data along the path, the cost of each leg (edge) between consecutive
+ * nodes, and the total cost.  Keeping these together means a caller that
+ * needs all three only has to search once.
+ *
+ * @param <NodeType> the type of data stored in each node along the route
+ */
+public class Route<NodeType> {
+
+  private final List<NodeType> locations;
+  private final double[] legCosts;
+  private final double totalCost;
+
+  /**
+   * Constructor for a route through the provided locations.
+   *
+   * @param locations the node data along the route, from start to end
+   * @param legCosts  the cost of the edge leaving each location, so there is
+   *                  one fewer leg cost than there are locations
+   * @throws IllegalArgumentException if the number of leg costs does not
+   *                                  match the number of locations
+   */
+  public Route(List<NodeType> locations, double[] legCosts) {
+    if (locations.isEmpty() || legCosts.length != locations.size() - 1)
+      throw new IllegalArgumentException("A route needs one leg between each two locations");
+    this.locations = Collections.unmodifiableList(locations);
+    this.legCosts = legCosts;
+    // added up from start to end, the same order a search adds them in
+    double total = 0;
+    for (double legCost : legCosts)
+      total += legCost;
+    this.totalCost = total;
+  }
+
+  /**
+   * Returns the node data along this route, from start to end.
+   *
+   * @return read-only list of the locations on this route
+   */
+  public List<NodeType> getLocations() {
+    return locations;
+  }
+
+  /**
+   * Returns the number of legs in this route, one less than the number of
+   * locations.
+   */
+  public int getLegCount() {
+    return legCosts.length;
+  }
+
+  /**
+   * Returns the cost of the leg from location i to location i + 1.
+   *
+   * @param i the index of the leg
+   * @return the cost of that leg
+   */
+  public double getLegCost(int i) {
+    return legCosts[i];
+  }
+
+  /**
+   * Returns the cost of each leg of this route, in order.
+   *
+   * @return a new list with the cost of each leg
+   */
+  public List<Double> getLegCosts() {
+    List<Double> costs = new ArrayList<>(legCosts.length);
+    for (double legCost : legCosts)
+      costs.add(legCost);
+    return costs;
+  }
+
+  /**
+   * Returns the total cost of this route, the sum of its leg costs.
+   */
+  public double getTotalCost() {
+    return totalCost;
+  }
+
+}
@@ -0,0 +1,222 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * This RouteCache class remembers recently found routes by their start and
+ * end, so that popular routes are only searched for once.  It holds at most
+ * a fixed number of routes, dropping the least recently used ones first,
+ * and each route is dropped once it is older than a time to live.
+ *
+ * The cache is split into stripes, each a LinkedHashMap in access order with
+ * its own lock, so threads looking up different routes rarely wait for each
+ * other.  Hits, misses, and evictions (including expired routes) are counted
+ * with LongAdders.
+ *
+ * Cached routes belong to one version of a graph.  Whenever get is called
+ * with a different version, or invalidate is called, every cached route is
+ * dropped, and routes that were being searched for at that moment are not
+ * added once they are found.
+ *
+ * @param <NodeType> the type of data stored in each node along the routes
+ */
+public class RouteCache<NodeType> {
+
+  public static final int DEFAULT_MAX_SIZE = 4096;
+  public static final long DEFAULT_TIME_TO_LIVE_NANOS = 10L * 60 * 1_000_000_000;
+
+  private static final int STRIPES = 16;
+
+  // a start and end pair, the key of each cached route
+  private static final class Key {
+    final Object start;
+    final Object end;
+
+    Key(Object start, Object end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key))
+        return false;
+      Key key = (Key) other;
+      return start.equals(key.start) && end.equals(key.end);
+    }
+
+    @Override
+    public int hashCode() {
+      return start.hashCode() * 31 + end.hashCode();
+    }
+  }
+
+  // a cached route, the graph version it was found in, and when it expires
+  private static final class Entry<NodeType> {
+    final Route<NodeType> route;
+    final Object version;
+    final long expiresAt;
+
+    Entry(Route<NodeType> route, Object version, long expiresAt) {
+      this.route = route;
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  // one part of the cache, guarded by its own lock
+  private static final class Stripe<NodeType> extends LinkedHashMap<Key, Entry<NodeType>> {
+    private static final long serialVersionUID = 1L;
+    private final int maxSize;
+    private final LongAdder evictions;
+
+    Stripe(int maxSize, LongAdder evictions) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+      this.evictions = evictions;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Entry<NodeType>> eldest) {
+      if (size() <= maxSize)
+        return false;
+      evictions.increment();
+      return true;
+    }
+  }
+
+  private final Stripe<NodeType>[] stripes;
+  private final long timeToLiveNanos;
+  // bumped by every invalidation, so searches that began before one can
+  // tell that their result is stale
+  private volatile long generation = 0;
+  // the graph version that the cached routes belong to
+  private volatile Object version = null;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructor for a cache with the default size and time to live.
+   */
+  public RouteCache() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE_NANOS);
+  }
+
+  /**
+   * Constructor for a cache with the provided limits.
+   *
+   * @param maxSize         the most routes to keep, or 0 to keep none
+   * @param timeToLiveNanos how long each route is kept, in nanoseconds
+   * @throws IllegalArgumentException if either limit is negative
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public RouteCache(int maxSize, long timeToLiveNanos) {
+    if (maxSize < 0 || timeToLiveNanos < 0)
+      throw new IllegalArgumentException("Cache limits cannot be negative");
+    this.timeToLiveNanos = timeToLiveNanos;
+    stripes = (Stripe<NodeType>[]) new Stripe[STRIPES];
+    // spread maxSize over the stripes, giving the remainder to the first ones
+    for (int i = 0; i < STRIPES; i++)
+      stripes[i] = new Stripe<>(maxSize / STRIPES + (i < maxSize % STRIPES ? 1 : 0), evictions);
+  }
+
+  /**
+   * Returns the route from start to end, from the cache when it is there, or
+   * else from search (and then adds it to the cache).  Exceptions thrown by
+   * search, like NoSuchElementException when there is no route, are passed
+   * on and nothing is cached.
+   *
+   * @param start        the start of the route
+   * @param end          the end of the route
+   * @param graphVersion identifies the graph being searched; it must be a
+   *                     different object whenever the graph has changed
+   * @param search       finds the route when it is not cached
+   * @return the route from start to end
+   */
+  public Route<NodeType> get(NodeType start, NodeType end, Object graphVersion,
+                             BiFunction<NodeType, NodeType, Route<NodeType>> search) {
+    if (graphVersion != version) {
+      synchronized (this) {
+        if (graphVersion != version) {
+          invalidate();
+          version = graphVersion;
+        }
+      }
+    }
+    Key key = new Key(start, end);
+    Stripe<NodeType> stripe = stripes[(key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1)];
+    long startGeneration = generation;
+    long now = System.nanoTime();
+    synchronized (stripe) {
+      Entry<NodeType> entry = stripe.get(key);
+      // a route from another version of the graph is never returned, even
+      // if it was added while the versions were being switched
+      if (entry != null) {
+        if (entry.version == graphVersion && now - entry.expiresAt < 0) {
+          hits.increment();
+          return entry.route;
+        }
+        stripe.remove(key);
+        if (entry.version == graphVersion)
+          evictions.increment();
+      }
+    }
+
+    misses.increment();
+    Route<NodeType> route = search.apply(start, end);
+    synchronized (stripe) {
+      // invalidate clears each stripe while holding its lock after bumping
+      // the generation, so checking here keeps stale routes out
+      if (generation == startGeneration && stripe.maxSize > 0)
+        stripe.put(key, new Entry<>(route, graphVersion, now + timeToLiveNanos));
+    }
+    return route;
+  }
+
+  /**
+   * Drops every cached route.  Searches already in progress will not add
+   * their routes to the cache.
+   */
+  public void invalidate() {
+    synchronized (this) {
+      generation++;
+    }
+    for (Stripe<NodeType> stripe : stripes)
+      synchronized (stripe) {
+        stripe.clear();
+      }
+  }
+
+  /**
+   * Returns the number of routes currently cached, including any that have
+   * expired but not been looked up since.
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe<NodeType> stripe : stripes)
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    return size;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of routes dropped to make room for others, or
+   * because they expired.  Routes dropped by invalidation are not counted.
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+}
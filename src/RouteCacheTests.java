@@ -0,0 +1,109 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the RouteCache, on its own and in front of the Backend.
+ */
+public class RouteCacheTests {
+
+  private static Route<String> route(String start, String end) {
+    return new Route<>(List.of(start, end), new double[] {1});
+  }
+
+  // repeated lookups are hits, and the least recently used route is evicted
+  // once the cache is full
+  @Test
+  public void testHitsAndEvictions() {
+    // one route per stripe, so every key competes for a single slot
+    RouteCache<String> cache = new RouteCache<>(16, Long.MAX_VALUE);
+    Object version = new Object();
+    Route<String> first = cache.get("a", "b", version, RouteCacheTests::route);
+    assertSame(first, cache.get("a", "b", version, RouteCacheTests::route));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    for (int i = 0; i < 1000; i++)
+      cache.get("a", "n" + i, version, RouteCacheTests::route);
+    assertEquals(16, cache.size());
+    assertEquals(1000 + 1 - 16, cache.getEvictionCount());
+  }
+
+  // expired routes and routes from another version are searched for again,
+  // and failed searches are not cached
+  @Test
+  public void testExpiryVersionsAndFailures() {
+    RouteCache<String> expiring = new RouteCache<>(100, 0);
+    Object version = new Object();
+    Route<String> first = expiring.get("a", "b", version, RouteCacheTests::route);
+    assertNotEquals(first, expiring.get("a", "b", version, RouteCacheTests::route));
+    assertEquals(1, expiring.getEvictionCount());
+
+    RouteCache<String> cache = new RouteCache<>();
+    first = cache.get("a", "b", version, RouteCacheTests::route);
+    assertNotEquals(first, cache.get("a", "b", new Object(), RouteCacheTests::route));
+    assertThrows(NoSuchElementException.class, () -> cache.get("a", "c", version, (s, e) -> {
+      throw new NoSuchElementException("No path");
+    }));
+    assertEquals(0, cache.getHitCount());
+  }
+
+  // changing the graph, through the backend or directly, drops cached routes
+  @Test
+  public void testBackendInvalidation() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    Backend backend = new Backend(graph);
+    backend.loadGraphData("campus.dot");
+    Route<String> route = backend.findShortestRoute("Memorial Union", "Union South");
+    assertSame(route, backend.findShortestRoute("Memorial Union", "Union South"));
+    assertEquals(1, backend.getRouteCache().getHitCount());
+
+    // a shortcut through the backend is used right away
+    backend.insertEdge("Memorial Union", "Union South", 1.0);
+    assertEquals(List.of("Memorial Union", "Union South"),
+            backend.findLocationsOnShortestPath("Memorial Union", "Union South"));
+    // and so is removing it directly from the graph
+    graph.removeEdge("Memorial Union", "Union South");
+    assertEquals(route.getTotalCost(),
+            backend.findShortestRoute("Memorial Union", "Union South").getTotalCost());
+  }
+
+  // the server's read-only CompactGraph is replaced by a changed copy when
+  // nodes or edges are added or removed, which also drops cached routes
+  @Test
+  public void testCompactBackendInvalidation() throws IOException {
+    Backend backend = new Backend(CompactGraph.of(new DijkstraGraph<String, Double>()));
+    backend.loadGraphData("campus.dot");
+    Route<String> route = backend.findShortestRoute("Memorial Union", "Union South");
+    assertSame(route, backend.findShortestRoute("Memorial Union", "Union South"));
+
+    assertTrue(backend.insertEdge("Memorial Union", "Union South", 1.0));
+    assertEquals(List.of("Memorial Union", "Union South"),
+            backend.findLocationsOnShortestPath("Memorial Union", "Union South"));
+    assertTrue(backend.removeEdge("Memorial Union", "Union South"));
+    assertFalse(backend.removeEdge("Memorial Union", "Union South"));
+    assertEquals(route.getTotalCost(),
+            backend.findShortestRoute("Memorial Union", "Union South").getTotalCost());
+
+    assertTrue(backend.insertNode("Picnic Point"));
+    assertFalse(backend.insertNode("Picnic Point"));
+    assertFalse(backend.insertEdge("Memorial Union", "Nowhere", 1.0));
+    assertTrue(backend.insertEdge("Memorial Union", "Picnic Point", 2.0));
+    assertEquals(2.0, backend.findShortestRoute("Memorial Union", "Picnic Point").getTotalCost());
+    assertTrue(backend.removeNode("Picnic Point"));
+    assertFalse(backend.containsLocation("Picnic Point"));
+    assertThrows(NoSuchElementException.class,
+            () -> backend.findShortestRoute("Memorial Union", "Picnic Point"));
+    assertEquals(route.getTotalCost(),
+            backend.findShortestRoute("Memorial Union", "Union South").getTotalCost());
+  }
+
+}
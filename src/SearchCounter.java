@@ -0,0 +1,65 @@
+/**
+ * This SearchCounter class is a SearchObserver that counts each kind of step
+ * of the searches it observes, for profiling heavy queries.  The counts are
+ * plain fields, so a SearchCounter must only observe one thread at a time.
+ */
+public class SearchCounter implements SearchObserver {
+
+  private long relaxed = 0;
+  private long pushed = 0;
+  private long popped = 0;
+  private long settled = 0;
+
+  @Override
+  public void onRelax(int from, int node, double cost) {
+    relaxed++;
+  }
+
+  @Override
+  public void onPush(int node, double key) {
+    pushed++;
+  }
+
+  @Override
+  public void onPop(int node) {
+    popped++;
+  }
+
+  @Override
+  public void onSettle(int node, double cost) {
+    settled++;
+  }
+
+  /**
+   * Sets every count back to zero.
+   */
+  public void reset() {
+    relaxed = 0;
+    pushed = 0;
+    popped = 0;
+    settled = 0;
+  }
+
+  public long getRelaxedCount() {
+    return relaxed;
+  }
+
+  public long getPushedCount() {
+    return pushed;
+  }
+
+  public long getPoppedCount() {
+    return popped;
+  }
+
+  public long getSettledCount() {
+    return settled;
+  }
+
+  @Override
+  public String toString() {
+    return "relaxed " + relaxed + ", pushed " + pushed + ", popped " + popped
+            + ", settled " + settled;
+  }
+
+}
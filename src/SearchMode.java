@@ -0,0 +1,26 @@
+/**
+ * The algorithms that a graph can use to find the shortest path between two
+ * nodes.  They all return paths of the same cost, but differ in how many
+ * nodes they need to settle along the way.  When several paths tie for the
+ * lowest cost, different modes may return different ones of those paths, and
+ * their costs may then differ by floating point rounding in the last digit.
+ */
+public enum SearchMode {
+
+  /** Dijkstra's algorithm, expanding outward from the start node. */
+  DIJKSTRA,
+
+  /**
+   * Dijkstra's algorithm run forward from the start node and backward from
+   * the end node at the same time, stopping where the two searches meet.
+   */
+  BIDIRECTIONAL,
+
+  /**
+   * A* search guided by lower bounds from precomputed landmark distances
+   * (ALT).  Until landmarks are prepared for a graph, this mode searches
+   * the same way as DIJKSTRA.
+   */
+  ALT
+
+}
@@ -0,0 +1,59 @@
+/**
+ * A SearchObserver is told about each step of a shortest path search: every
+ * edge relaxed, every node pushed onto (or moved up in) the queue, and every
+ * node popped from the queue and settled.  Nodes are given by their ids in
+ * the CompactGraph being searched, which CompactGraph.nodeAt turns back into
+ * data.  Bidirectional searches report the steps of both halves.
+ *
+ * Every method does nothing by default, so an observer only overrides the
+ * steps it needs.  Searches hold NONE when nothing is observing them, and
+ * since its methods are empty, the JIT inlines the calls to nothing.
+ *
+ * Observers are called on the thread running the search, in the middle of
+ * its inner loop, so they should be quick and should not search themselves.
+ */
+public interface SearchObserver {
+
+  /** The observer that ignores every step. */
+  SearchObserver NONE = new SearchObserver() {
+  };
+
+  /**
+   * Called for each path to node that the search considers, before it is
+   * compared with the best path to node known so far.
+   *
+   * @param from the node the path arrives from, or -1 for the source
+   * @param node the node at the end of the path
+   * @param cost the cost of the path
+   */
+  default void onRelax(int from, int node, double cost) {
+  }
+
+  /**
+   * Called when node is queued, or has its key lowered, because of a path
+   * cheaper than any known before.
+   *
+   * @param node the node queued
+   * @param key  its key in the queue, which may include a heuristic estimate
+   */
+  default void onPush(int node, double key) {
+  }
+
+  /**
+   * Called when node is removed from the queue, just before it is settled.
+   *
+   * @param node the node removed
+   */
+  default void onPop(int node) {
+  }
+
+  /**
+   * Called when node is settled, so that cost is its final distance.
+   *
+   * @param node the node settled
+   * @param cost the cost of the shortest path to node
+   */
+  default void onSettle(int node, double cost) {
+  }
+
+}
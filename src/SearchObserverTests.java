@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchObserverTests {
+
+  // tests that an observer sees every step of a search, that nodes are
+  // settled in order of their distance, and that removing the observer
+  // stops the reports
+  @Test
+  public void testObserverSeesEachStep() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData("campus.dot");
+    List<Integer> settledIds = new ArrayList<>();
+    List<Double> settledCosts = new ArrayList<>();
+    SearchCounter counter = new SearchCounter() {
+      @Override
+      public void onSettle(int node, double cost) {
+        super.onSettle(node, cost);
+        settledIds.add(node);
+        settledCosts.add(cost);
+      }
+    };
+    graph.setSearchObserver(counter);
+    Assertions.assertSame(counter, graph.getSearchObserver());
+    // Backend chooses ALT, which does not settle nodes in order of distance
+    graph.setSearchMode(SearchMode.DIJKSTRA);
+
+    double cost = graph.shortestPathCost("Memorial Union", "Union South");
+    Assertions.assertEquals(graph.getLastSettledCount(), counter.getSettledCount());
+    Assertions.assertEquals(counter.getSettledCount(), counter.getPoppedCount());
+    Assertions.assertTrue(counter.getPushedCount() >= counter.getSettledCount());
+    Assertions.assertTrue(counter.getRelaxedCount() >= counter.getPushedCount());
+    CompactGraph<String> snapshot = graph.snapshot();
+    Assertions.assertEquals("Memorial Union", snapshot.nodeAt(settledIds.get(0)));
+    Assertions.assertEquals("Union South", snapshot.nodeAt(settledIds.get(settledIds.size() - 1)));
+    Assertions.assertEquals(cost, settledCosts.get(settledCosts.size() - 1));
+    for (int i = 1; i < settledCosts.size(); i++)
+      Assertions.assertTrue(settledCosts.get(i - 1) <= settledCosts.get(i));
+
+    // both halves of a bidirectional search are reported
+    counter.reset();
+    graph.setSearchMode(SearchMode.BIDIRECTIONAL);
+    graph.shortestPathData("Memorial Union", "Union South");
+    Assertions.assertEquals(graph.getLastSettledCount(), counter.getSettledCount());
+
+    counter.reset();
+    graph.setSearchObserver(SearchObserver.NONE);
+    graph.shortestPathCost("Memorial Union", "Union South");
+    graph.shortestPathCostsFrom("Memorial Union");
+    Assertions.assertEquals("relaxed 0, pushed 0, popped 0, settled 0", counter.toString());
+    Assertions.assertThrows(NullPointerException.class, () -> graph.setSearchObserver(null));
+  }
+
+  // tests that a graph's observer only observes that graph's searches
+  @Test
+  public void testObserverIsRestored() {
+    DijkstraGraph<String, Double> observed = new DijkstraGraph<>();
+    DijkstraGraph<String, Double> other = new DijkstraGraph<>();
+    for (DijkstraGraph<String, Double> graph : List.of(observed, other)) {
+      graph.insertNode("A");
+      graph.insertNode("B");
+      graph.insertEdge("A", "B", 2.0);
+    }
+    SearchCounter counter = new SearchCounter();
+    observed.setSearchObserver(counter);
+    Assertions.assertEquals(2, observed.shortestPathCostsFrom("A")[1]);
+    Assertions.assertEquals(2, counter.getSettledCount());
+    other.shortestPathCost("A", "B");
+    other.snapshot().shortestPathCost("A", "B");
+    Assertions.assertEquals(2, counter.getSettledCount());
+  }
+
+  // tests that a contraction hierarchy query, which stores edge ids as
+  // predecessors, still tells observers the node each path arrives from:
+  // the node that was settled just before
+  @Test
+  public void testObservesContractionHierarchy() throws IOException {
+    ContractionHierarchy<String, Double> hierarchy = new ContractionHierarchy<>();
+    new Backend(hierarchy).loadGraphData("campus.dot");
+    List<Integer> wrongFroms = new ArrayList<>();
+    int[] settledLast = {-1};
+    int[] relaxed = {0};
+    SearchObserver observer = new SearchObserver() {
+      @Override
+      public void onRelax(int from, int node, double cost) {
+        relaxed[0]++;
+        if (from != -1 && from != settledLast[0])
+          wrongFroms.add(from);
+      }
+
+      @Override
+      public void onSettle(int node, double cost) {
+        settledLast[0] = node;
+      }
+    };
+    SearchObserver previous = SearchSpace.observe(observer);
+    try {
+      hierarchy.shortestPathCost("Memorial Union", "Union South");
+      hierarchy.shortestPathData("Union South", "Computer Sciences and Statistics");
+    } finally {
+      SearchSpace.observe(previous);
+    }
+    Assertions.assertTrue(relaxed[0] > 2);
+    Assertions.assertEquals(List.of(), wrongFroms);
+  }
+
+}
@@ -0,0 +1,239 @@
+import java.util.Arrays;
+
+/**
+ * This SearchSpace class holds the working state of one shortest path search
+ * over node ids: the best known distance and predecessor of each node, which
+ * nodes are settled, and the queue of nodes waiting to be settled.
+ *
+ * The arrays are reused from one search to the next.  Instead of clearing
+ * them, each search gets a new epoch number, and an entry only counts as
+ * written when its stamp matches the current epoch.  Each thread has its
+ * own SearchSpaces (see forThread), so a search allocates no memory once the
+ * arrays have grown to the size of the graph.
+ *
+ * Each step of a search is reported to the space's SearchObserver, which is
+ * SearchObserver.NONE unless one is set with observe.
+ */
+public class SearchSpace {
+
+  // each thread has one space for forward searches, and a second one for the
+  // backward half of bidirectional searches
+  private static final ThreadLocal<SearchSpace> FORWARD =
+          ThreadLocal.withInitial(() -> new SearchSpace(64));
+  private static final ThreadLocal<SearchSpace> BACKWARD =
+          ThreadLocal.withInitial(() -> new SearchSpace(64));
+
+  // distance from the source and predecessor on that path, for each node
+  protected double[] dist;
+  protected int[] pred;
+  // nodes are reached (and settled) in this search when stamped with epoch
+  private int[] reached;
+  private int[] settled;
+  private int epoch = 0;
+  protected final IndexedMinHeap queue;
+
+  // work done by the most recent search, for instrumentation
+  protected int settledCount = 0;
+  protected int maxQueueSize = 0;
+  // told about each step of the searches in this space
+  private SearchObserver observer = SearchObserver.NONE;
+
+  /**
+   * Constructor for a search space over node ids from 0 to capacity-1.
+   *
+   * @param capacity the number of nodes in the graphs to search
+   */
+  public SearchSpace(int capacity) {
+    dist = new double[capacity];
+    pred = new int[capacity];
+    reached = new int[capacity];
+    settled = new int[capacity];
+    queue = new IndexedMinHeap(capacity);
+  }
+
+  /**
+   * Returns this thread's search space, reset for a new search over a graph
+   * with nodeCount nodes.
+   *
+   * @param nodeCount the number of nodes in the graph about to be searched
+   * @return an empty search space owned by the calling thread
+   */
+  public static SearchSpace forThread(int nodeCount) {
+    SearchSpace space = FORWARD.get();
+    space.reset(nodeCount);
+    return space;
+  }
+
+  /**
+   * Returns this thread's second search space, reset for the backward half
+   * of a bidirectional search over a graph with nodeCount nodes.
+   */
+  public static SearchSpace backwardForThread(int nodeCount) {
+    SearchSpace space = BACKWARD.get();
+    space.reset(nodeCount);
+    return space;
+  }
+
+  /**
+   * Returns this thread's forward search space without resetting it, so the
+   * results of the last search can be read.
+   */
+  public static SearchSpace forward() {
+    return FORWARD.get();
+  }
+
+  /**
+   * Returns this thread's backward search space without resetting it.
+   */
+  public static SearchSpace backward() {
+    return BACKWARD.get();
+  }
+
+  /**
+   * Sets the observer told about the searches run on the calling thread
+   * (in both of its search spaces), until it is replaced.
+   *
+   * @param observer the observer, or SearchObserver.NONE to stop observing
+   * @return the observer that was set before
+   */
+  public static SearchObserver observe(SearchObserver observer) {
+    SearchSpace forward = FORWARD.get();
+    SearchObserver previous = forward.observer;
+    forward.observer = observer;
+    BACKWARD.get().observer = observer;
+    return previous;
+  }
+
+  /**
+   * Forgets the previous search, and grows the arrays if needed.
+   *
+   * @param nodeCount the number of nodes in the graph about to be searched
+   */
+  public void reset(int nodeCount) {
+    if (nodeCount > dist.length) {
+      int capacity = Math.max(nodeCount, dist.length * 2);
+      dist = new double[capacity];
+      pred = new int[capacity];
+      reached = new int[capacity];
+      settled = new int[capacity];
+      queue.ensureCapacity(capacity);
+      epoch = 0;
+    }
+    // when the epoch wraps around, old stamps could match again
+    if (++epoch == Integer.MAX_VALUE) {
+      Arrays.fill(reached, 0);
+      Arrays.fill(settled, 0);
+      epoch = 1;
+    }
+    queue.clear();
+    settledCount = 0;
+    maxQueueSize = 0;
+  }
+
+  /**
+   * Returns the best known distance to node, or infinity if it is unreached.
+   */
+  public double dist(int node) {
+    return reached[node] == epoch ? dist[node] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the predecessor of node on its best known path, or -1 for the
+   * source of the search.
+   */
+  public int pred(int node) {
+    return pred[node];
+  }
+
+  public boolean isReached(int node) {
+    return reached[node] == epoch;
+  }
+
+  public boolean isSettled(int node) {
+    return settled[node] == epoch;
+  }
+
+  /**
+   * Records a path to node with the provided cost when it is cheaper than
+   * the best one known so far, and queues node with that cost as its key.
+   *
+   * @param node the node reached
+   * @param cost the cost of the path to node
+   * @param from the predecessor of node on that path, or -1 for the source
+   * @return true if the path was recorded, false if it was not cheaper
+   */
+  public boolean relax(int node, double cost, int from) {
+    return relax(node, cost, from, cost);
+  }
+
+  /**
+   * Like relax(node, cost, from) but queues node with a separate key, which
+   * lets goal directed searches add a heuristic estimate to the cost.
+   */
+  public boolean relax(int node, double cost, int from, double key) {
+    return relax(node, cost, from, key, from);
+  }
+
+  /**
+   * Like relax(node, cost, from), but stores the id of the edge that reaches
+   * node as its predecessor instead of a node, for searches that unpack the
+   * edges of a path afterward.  Observers are still told the node that the
+   * path arrives from.
+   *
+   * @param node the node reached
+   * @param cost the cost of the path to node
+   * @param edge the id of the last edge on that path, stored in pred
+   * @param from the node the path arrives from, at the other end of edge
+   * @return true if the path was recorded, false if it was not cheaper
+   */
+  public boolean relaxEdge(int node, double cost, int edge, int from) {
+    return relax(node, cost, edge, cost, from);
+  }
+
+  // records a path to node whose predecessor entry is stored, while the
+  // observer is told that it arrives from the node from
+  private boolean relax(int node, double cost, int stored, double key, int from) {
+    observer.onRelax(from, node, cost);
+    if (reached[node] == epoch && dist[node] <= cost)
+      return false;
+    reached[node] = epoch;
+    dist[node] = cost;
+    pred[node] = stored;
+    queue.insertOrDecrease(node, key);
+    observer.onPush(node, key);
+    if (queue.size() > maxQueueSize)
+      maxQueueSize = queue.size();
+    return true;
+  }
+
+  /**
+   * Removes the node with the lowest key from the queue and marks it settled.
+   *
+   * @return that node's id
+   */
+  public int settleNext() {
+    int node = queue.poll();
+    observer.onPop(node);
+    settled[node] = epoch;
+    settledCount++;
+    observer.onSettle(node, dist[node]);
+    return node;
+  }
+
+  /**
+   * Zeroes the work counters without starting a new search.
+   */
+  public void clearStatistics() {
+    settledCount = 0;
+    maxQueueSize = 0;
+  }
+
+  public int getSettledCount() {
+    return settledCount;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * This ShortestPathRepair class updates shortest path trees after the weight
+ * of one edge changes, in the way of Ramalingam and Reps, instead of running
+ * their searches again from scratch.  Only the nodes whose shortest paths
+ * actually change are touched:
+ *
+ * When the weight falls, the edge may now give its head a cheaper path.  If
+ * it does, a Dijkstra search starts from the head and spreads only as far as
+ * paths keep getting cheaper.
+ *
+ * When the weight rises, nothing changes unless the edge is in the tree.  If
+ * it is, the nodes below it in the tree lose their paths.  Each of them
+ * starts from the best path that enters it from a node outside that subtree,
+ * and a Dijkstra search limited to the subtree settles the rest.
+ *
+ * Trees over reverse edges (the distances to a node rather than from it) are
+ * repaired the same way, with the edge's ends swapped.  One repair holds the
+ * scratch space for any number of trees of the same graph.
+ */
+public class ShortestPathRepair {
+
+  /**
+   * A shortest path tree to repair in place: the distance of each node from
+   * the tree's source (infinity when it is unreachable), and the node before
+   * it on that path (-1 for the source and unreachable nodes).
+   */
+  public interface Tree {
+    double dist(int node);
+
+    int pred(int node);
+
+    void set(int node, double dist, int pred);
+  }
+
+  // the graph, which already has the new weight
+  private final CompactGraph<?> graph;
+  // the edge whose weight changed
+  private final int edgePred;
+  private final int edgeSucc;
+  private final double oldWeight;
+  private final double newWeight;
+
+  // scratch space, reused by every tree that is repaired
+  private final IndexedMinHeap queue;
+  private final int[] subtree;
+  private final int[] inSubtree;
+  private int stamp = 0;
+
+  /**
+   * Constructor for a repair after one edge's weight changed.
+   *
+   * @param graph     the graph with the new weight
+   * @param edgePred  the id of the node that the edge leaves
+   * @param edgeSucc  the id of the node that the edge enters
+   * @param oldWeight the weight the trees were built with
+   * @param newWeight the weight the edge has now
+   */
+  public ShortestPathRepair(CompactGraph<?> graph, int edgePred, int edgeSucc,
+                            double oldWeight, double newWeight) {
+    this.graph = graph;
+    this.edgePred = edgePred;
+    this.edgeSucc = edgeSucc;
+    this.oldWeight = oldWeight;
+    this.newWeight = newWeight;
+    int n = graph.getNodeCount();
+    queue = new IndexedMinHeap(n);
+    subtree = new int[n];
+    inSubtree = new int[n];
+  }
+
+  /**
+   * Checks whether the weight change alters tree, without changing it, so
+   * that callers only need to copy the trees that will be repaired.
+   *
+   * @param tree    the tree to check
+   * @param reverse true if tree follows edges from successor to predecessor
+   * @return true if repair would change tree, false if tree is still correct
+   */
+  public boolean affects(Tree tree, boolean reverse) {
+    int tail = reverse ? edgeSucc : edgePred;
+    int head = reverse ? edgePred : edgeSucc;
+    if (newWeight < oldWeight)
+      return tree.dist(tail) + newWeight < tree.dist(head);
+    if (newWeight > oldWeight)
+      return tree.pred(head) == tail;
+    return false;
+  }
+
+  /**
+   * Repairs tree in place, so that it holds the shortest paths with the new
+   * weight.
+   *
+   * @param tree    the tree to repair, built with the old weight
+   * @param reverse true if tree follows edges from successor to predecessor
+   */
+  public void repair(Tree tree, boolean reverse) {
+    if (!affects(tree, reverse))
+      return;
+    int tail = reverse ? edgeSucc : edgePred;
+    int head = reverse ? edgePred : edgeSucc;
+    queue.clear();
+    if (newWeight < oldWeight) {
+      tree.set(head, tree.dist(tail) + newWeight, tail);
+      queue.insertOrDecrease(head, tree.dist(head));
+      settle(tree, reverse, false);
+    } else {
+      int size = collectSubtree(tree, reverse, head);
+      for (int i = 0; i < size; i++)
+        tree.set(subtree[i], Double.POSITIVE_INFINITY, -1);
+      // the best path into each subtree node from outside the subtree
+      int[] rowOffsets = reverse ? graph.offsets : graph.inOffsets;
+      int[] neighbors = reverse ? graph.targets : graph.sources;
+      double[] edgeWeights = reverse ? graph.weights : graph.inWeights;
+      for (int i = 0; i < size; i++) {
+        int node = subtree[i];
+        for (int j = rowOffsets[node]; j < rowOffsets[node + 1]; j++) {
+          int from = neighbors[j];
+          if (inSubtree[from] != stamp && tree.dist(from) + edgeWeights[j] < tree.dist(node))
+            tree.set(node, tree.dist(from) + edgeWeights[j], from);
+        }
+        if (tree.dist(node) < Double.POSITIVE_INFINITY)
+          queue.insertOrDecrease(node, tree.dist(node));
+      }
+      settle(tree, reverse, true);
+    }
+  }
+
+  // lists head and every node below it in tree, and stamps them
+  private int collectSubtree(Tree tree, boolean reverse, int head) {
+    int[] rowOffsets = reverse ? graph.inOffsets : graph.offsets;
+    int[] neighbors = reverse ? graph.sources : graph.targets;
+    stamp++;
+    int size = 0;
+    subtree[size++] = head;
+    inSubtree[head] = stamp;
+    for (int i = 0; i < size; i++) {
+      int node = subtree[i];
+      for (int j = rowOffsets[node]; j < rowOffsets[node + 1]; j++) {
+        int child = neighbors[j];
+        if (inSubtree[child] != stamp && tree.pred(child) == node) {
+          inSubtree[child] = stamp;
+          subtree[size++] = child;
+        }
+      }
+    }
+    return size;
+  }
+
+  // runs Dijkstra's algorithm from the queued nodes, lowering the distances
+  // of the nodes they lead to (only within the subtree when onlySubtree)
+  private void settle(Tree tree, boolean reverse, boolean onlySubtree) {
+    int[] rowOffsets = reverse ? graph.inOffsets : graph.offsets;
+    int[] neighbors = reverse ? graph.sources : graph.targets;
+    double[] edgeWeights = reverse ? graph.inWeights : graph.weights;
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+      double cost = tree.dist(node);
+      for (int j = rowOffsets[node]; j < rowOffsets[node + 1]; j++) {
+        int next = neighbors[j];
+        if (onlySubtree && inSubtree[next] != stamp)
+          continue;
+        if (cost + edgeWeights[j] < tree.dist(next)) {
+          tree.set(next, cost + edgeWeights[j], node);
+          queue.insertOrDecrease(next, cost + edgeWeights[j]);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,165 @@
+import java.util.NoSuchElementException;
+
+/**
+ * This ShortestPathTree class holds the result of one complete Dijkstra
+ * search from a source node: the cost of the shortest path to every node,
+ * and each node's predecessor on that path.  Once a tree is built, the
+ * shortest path from its source to any node is found by walking
+ * predecessors back to the source, without searching again.
+ *
+ * The tree takes (8 + 4) * n bytes for a graph of n nodes, which is much
+ * less than a row of the AllPairsIndex needs per source, so trees can be
+ * kept for the popular sources of graphs that are too large for all pairs.
+ */
+public class ShortestPathTree {
+
+  private final int source;
+  // cost from source to node i, or infinity when node i is unreachable
+  private final double[] dist;
+  // node before node i on the path from source, or -1 for the source itself
+  // and for nodes that are unreachable
+  private final int[] pred;
+
+  private ShortestPathTree(int source, double[] dist, int[] pred) {
+    this.source = source;
+    this.dist = dist;
+    this.pred = pred;
+  }
+
+  /**
+   * Builds the tree for source by running a full search over graph.
+   *
+   * @param graph  the graph to search
+   * @param source the id of the node to build the tree from
+   * @return the shortest path tree rooted at source
+   */
+  public static ShortestPathTree build(CompactGraph<?> graph, int source) {
+    return build(graph, source, false);
+  }
+
+  /**
+   * Builds the tree for source, following edges backward when reverse is
+   * true.  A reverse tree holds the cost of the shortest path from every
+   * node to source, and each node's next node on that path as its
+   * predecessor.
+   *
+   * @param graph   the graph to search
+   * @param source  the id of the node to build the tree from
+   * @param reverse true to follow edges from their successor to predecessor
+   * @return the shortest path tree rooted at source
+   */
+  public static ShortestPathTree build(CompactGraph<?> graph, int source, boolean reverse) {
+    int n = graph.getNodeCount();
+    SearchSpace space = graph.sweep(source, reverse);
+    ShortestPathTree tree = new ShortestPathTree(source, new double[n], new int[n]);
+    for (int node = 0; node < n; node++) {
+      tree.dist[node] = space.dist(node);
+      tree.pred[node] = space.isReached(node) ? space.pred(node) : -1;
+    }
+    return tree;
+  }
+
+  /**
+   * Returns this tree updated for one changed edge weight.  Trees are never
+   * modified, since other threads may be reading them, so a repaired copy is
+   * returned when the change affects this tree, and this tree otherwise.
+   *
+   * @param repair  the change to repair this tree for
+   * @param reverse true if this tree was built over reverse edges
+   * @return a tree that is correct for the changed graph
+   */
+  public ShortestPathTree repaired(ShortestPathRepair repair, boolean reverse) {
+    if (!repair.affects(view(), reverse))
+      return this;
+    ShortestPathTree copy = new ShortestPathTree(source, dist.clone(), pred.clone());
+    repair.repair(copy.view(), reverse);
+    return copy;
+  }
+
+  // lets a ShortestPathRepair read and write this tree's arrays
+  private ShortestPathRepair.Tree view() {
+    return new ShortestPathRepair.Tree() {
+      public double dist(int node) {
+        return dist[node];
+      }
+
+      public int pred(int node) {
+        return pred[node];
+      }
+
+      public void set(int node, double cost, int from) {
+        dist[node] = cost;
+        pred[node] = from;
+      }
+    };
+  }
+
+  /**
+   * Returns the number of bytes that a tree over nodeCount nodes takes.
+   *
+   * @param nodeCount the number of nodes in the graph
+   * @return the size of the tree's arrays in bytes
+   */
+  public static long requiredBytes(int nodeCount) {
+    return (long) nodeCount * (Double.BYTES + Integer.BYTES);
+  }
+
+  public int getSource() {
+    return source;
+  }
+
+  public int getNodeCount() {
+    return dist.length;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the source to end.
+   *
+   * @param end the id of the end node
+   * @return that cost, or infinity when there is no such path
+   */
+  public double cost(int end) {
+    return dist[end];
+  }
+
+  /**
+   * Returns the node before end on the shortest path from the source.
+   *
+   * @param end the id of the end node
+   * @return the id of that node, or -1 when end is the source or unreachable
+   */
+  public int predecessor(int end) {
+    return pred[end];
+  }
+
+  /**
+   * Returns the cost of the shortest path from the source to every node.
+   *
+   * @return a copy of the costs indexed by node id, infinity for unreachable
+   *         nodes
+   */
+  public double[] costs() {
+    return dist.clone();
+  }
+
+  /**
+   * Returns the ids of the nodes along the shortest path from the source to
+   * end.
+   *
+   * @param end the id of the end node
+   * @return the node ids from the source to end
+   * @throws NoSuchElementException when there is no path to end
+   */
+  public int[] path(int end) {
+    if (dist[end] == Double.POSITIVE_INFINITY)
+      throw new NoSuchElementException("No path");
+    int length = 0;
+    for (int node = end; node != -1; node = pred[node])
+      length++;
+    int[] path = new int[length];
+    for (int node = end, i = length - 1; node != -1; node = pred[node])
+      path[i--] = node;
+    return path;
+  }
+
+}
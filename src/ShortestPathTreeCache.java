@@ -0,0 +1,128 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This ShortestPathTreeCache class keeps the shortest path trees of recently
+ * used sources in one CompactGraph, so that repeated queries from the same
+ * origin walk a cached tree instead of searching.  The trees are kept in a
+ * LinkedHashMap in access order, and the least recently used ones are
+ * dropped whenever their total size would exceed a memory budget.
+ *
+ * A cache belongs to one immutable graph, so its trees never go stale.  When
+ * a DijkstraGraph only changes edge weights, its next snapshot gets a
+ * repaired copy of the cache; after any other change it gets an empty one.
+ */
+public class ShortestPathTreeCache {
+
+  // memory budget used when none is specified
+  public static final long DEFAULT_MEMORY_BUDGET = 16L * 1024 * 1024;
+
+  private final long memoryBudget;
+  private final long treeBytes;
+  private final LinkedHashMap<Integer, ShortestPathTree> trees;
+
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  private ShortestPathTreeCache(CompactGraph<?> graph, long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+    this.treeBytes = ShortestPathTree.requiredBytes(graph.getNodeCount());
+    this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+        if (size() * treeBytes <= ShortestPathTreeCache.this.memoryBudget)
+          return false;
+        evictions++;
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Creates a cache for the trees of graph.
+   *
+   * @param graph        the graph whose trees are cached
+   * @param memoryBudget the most bytes the cached trees may take
+   * @return the cache, or null if not even one tree fits within memoryBudget
+   */
+  public static ShortestPathTreeCache create(CompactGraph<?> graph, long memoryBudget) {
+    if (memoryBudget <= 0 || ShortestPathTree.requiredBytes(graph.getNodeCount()) > memoryBudget)
+      return null;
+    return new ShortestPathTreeCache(graph, memoryBudget);
+  }
+
+  /**
+   * Returns the cached tree from source, or null when it is not cached (and
+   * should be built and added).
+   *
+   * @param source the id of the source node
+   * @return the tree rooted at source, or null
+   */
+  public synchronized ShortestPathTree get(int source) {
+    ShortestPathTree tree = trees.get(source);
+    if (tree != null)
+      hits++;
+    else
+      misses++;
+    return tree;
+  }
+
+  /**
+   * Adds a newly built tree to the cache, unless another thread already
+   * added a tree from the same source, in which case that one is kept.
+   *
+   * @param tree the tree to add
+   * @return the tree now cached for tree's source
+   */
+  public synchronized ShortestPathTree add(ShortestPathTree tree) {
+    ShortestPathTree other = trees.putIfAbsent(tree.getSource(), tree);
+    return other != null ? other : tree;
+  }
+
+  /**
+   * Returns a cache for a graph that differs from this cache's graph in one
+   * edge weight, holding the same trees repaired for that change (trees the
+   * change does not affect are shared).  The least recently used order is
+   * kept, and the statistics start over.
+   *
+   * @param graph  the changed graph
+   * @param repair the change to repair the trees for
+   * @return the cache for graph
+   */
+  public synchronized ShortestPathTreeCache repaired(CompactGraph<?> graph,
+                                                     ShortestPathRepair repair) {
+    ShortestPathTreeCache changed = new ShortestPathTreeCache(graph, memoryBudget);
+    // iterating does not count as access, so the eldest trees come first
+    for (ShortestPathTree tree : trees.values())
+      changed.trees.put(tree.getSource(), tree.repaired(repair, false));
+    return changed;
+  }
+
+  /**
+   * Returns the number of trees currently cached.
+   */
+  public synchronized int size() {
+    return trees.size();
+  }
+
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of trees dropped to stay within the memory budget.
+   */
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+}
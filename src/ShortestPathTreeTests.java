@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class ShortestPathTreeTests {
+
+  // tests that paths read from cached trees match Dijkstra searches exactly,
+  // and that only the first query from each source searches
+  @Test
+  public void testTreesMatchDijkstra() throws IOException {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData("campus.dot");
+    CompactGraph<String> compact = CompactGraph.of(graph);
+    Assertions.assertTrue(graph.prepareTreeCache(ShortestPathTreeCache.DEFAULT_MEMORY_BUDGET));
+    ShortestPathTreeCache cache = graph.snapshot().getTreeCache();
+
+    List<String> nodes = graph.getAllNodes();
+    for (String start : nodes) {
+      boolean first = true;
+      for (String end : nodes) {
+        try {
+          double expected = compact.shortestPathCost(start, end, SearchMode.DIJKSTRA);
+          Assertions.assertEquals(expected, graph.shortestPathCost(start, end));
+          if (!first)
+            Assertions.assertEquals(0, graph.getLastSettledCount());
+          Assertions.assertEquals(compact.shortestPathData(start, end, SearchMode.DIJKSTRA),
+                  graph.shortestPathData(start, end));
+          Assertions.assertEquals(expected, graph.shortestRoute(start, end).getTotalCost());
+        } catch (NoSuchElementException e) {
+          Assertions.assertThrows(NoSuchElementException.class,
+                  () -> graph.shortestPathData(start, end));
+        }
+        first = false;
+      }
+    }
+    Assertions.assertEquals(nodes.size(), cache.size());
+    Assertions.assertEquals(nodes.size(), cache.getMissCount());
+    Assertions.assertEquals(0, cache.getEvictionCount());
+
+    String start = nodes.get(0);
+    ShortestPathTree tree = graph.shortestPathTree(start);
+    Assertions.assertSame(tree, graph.shortestPathTree(start));
+    Assertions.assertArrayEquals(compact.shortestPathCostsFrom(start),
+            graph.shortestPathCostsFrom(start));
+    Assertions.assertEquals(-1, tree.predecessor(tree.getSource()));
+    Assertions.assertEquals(0.0, tree.cost(tree.getSource()));
+  }
+
+  // tests that the cache stays within its memory budget, and that changing
+  // the graph drops every tree
+  @Test
+  public void testBudgetAndChanges() {
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    for (String node : List.of("A", "B", "C", "D"))
+      graph.insertNode(node);
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("B", "C", 1.0);
+    graph.insertEdge("A", "C", 5.0);
+    graph.insertEdge("C", "D", 1.0);
+
+    long treeBytes = ShortestPathTree.requiredBytes(4);
+    Assertions.assertFalse(graph.prepareTreeCache(treeBytes - 1));
+    Assertions.assertNull(graph.snapshot().getTreeCache());
+    Assertions.assertTrue(graph.prepareTreeCache(2 * treeBytes));
+    ShortestPathTreeCache cache = graph.snapshot().getTreeCache();
+    for (String start : List.of("A", "B", "C", "A"))
+      graph.shortestPathCost(start, "D");
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertEquals(2, cache.getEvictionCount());
+    Assertions.assertEquals(List.of("A", "B", "C", "D"), graph.shortestPathData("A", "D"));
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathData("D", "A"));
+
+    // the new snapshot gets a new, empty cache with the same budget
+    graph.insertEdge("A", "D", 2.0);
+    ShortestPathTreeCache newCache = graph.snapshot().getTreeCache();
+    Assertions.assertNotSame(cache, newCache);
+    Assertions.assertEquals(0, newCache.size());
+    Assertions.assertEquals(2 * treeBytes, newCache.getMemoryBudget());
+    Assertions.assertEquals(List.of("A", "D"), graph.shortestPathData("A", "D"));
+    Assertions.assertEquals(2.0, graph.shortestPathCost("A", "D"));
+  }
+
+}
@@ -0,0 +1,107 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * This SyntheticGraphs class generates campus-like graphs of any size, for
+ * benchmarks and tests that need more than the 160 nodes of campus.dot.
+ * Node names are "n0", "n1", ..., and edge weights are walking times in
+ * seconds between 30 and 300, like the ones in campus.dot.  The same seed
+ * always generates the same graph.
+ */
+public class SyntheticGraphs {
+
+  // receives each edge of a generated graph
+  private interface EdgeSink {
+    void edge(String pred, String succ, double seconds) throws IOException;
+  }
+
+  /**
+   * Generates a street grid: every node is connected in both directions to
+   * the nodes to its right and below, and the two directions of a street can
+   * take different times.
+   *
+   * @param graph the graph to insert the nodes and edges into
+   * @param rows  number of rows of nodes
+   * @param cols  number of nodes in each row
+   * @param seed  seed for the random edge weights
+   */
+  public static void grid(GraphADT<String, Double> graph, int rows, int cols, long seed) {
+    for (int i = 0; i < rows * cols; i++)
+      graph.insertNode("n" + i);
+    try {
+      grid(rows, cols, seed, graph::insertEdge);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // inserting edges does no I/O
+    }
+  }
+
+  /**
+   * Writes the same street grid as grid(graph, rows, cols, seed) to a dot file
+   * in the format that Backend.loadGraphData reads.
+   *
+   * @param file where to write the dot file
+   * @param rows number of rows of nodes
+   * @param cols number of nodes in each row
+   * @param seed seed for the random edge weights
+   * @throws IOException if the file cannot be written
+   */
+  public static void writeGridDot(Path file, int rows, int cols, long seed) throws IOException {
+    try (BufferedWriter out = Files.newBufferedWriter(file)) {
+      out.write("digraph grid {\n");
+      grid(rows, cols, seed, (pred, succ, seconds) ->
+              out.write("\t\"" + pred + "\" -> \"" + succ + "\" [seconds=" + seconds + "];\n"));
+      out.write("}\n");
+    }
+  }
+
+  private static void grid(int rows, int cols, long seed, EdgeSink sink) throws IOException {
+    Random random = new Random(seed);
+    for (int r = 0; r < rows; r++)
+      for (int c = 0; c < cols; c++) {
+        int node = r * cols + c;
+        if (c + 1 < cols) {
+          sink.edge("n" + node, "n" + (node + 1), seconds(random));
+          sink.edge("n" + (node + 1), "n" + node, seconds(random));
+        }
+        if (r + 1 < rows) {
+          sink.edge("n" + node, "n" + (node + cols), seconds(random));
+          sink.edge("n" + (node + cols), "n" + node, seconds(random));
+        }
+      }
+  }
+
+  /**
+   * Generates a random sparse graph: a one-way ring through every node, so
+   * that every node can reach every other, plus degree random edges leaving
+   * each node.
+   *
+   * @param graph  the graph to insert the nodes and edges into
+   * @param nodes  the number of nodes
+   * @param degree the number of random edges leaving each node
+   * @param seed   seed for the random edges and weights
+   */
+  public static void randomSparse(GraphADT<String, Double> graph, int nodes, int degree,
+                                  long seed) {
+    Random random = new Random(seed);
+    for (int i = 0; i < nodes; i++)
+      graph.insertNode("n" + i);
+    for (int i = 0; i < nodes; i++) {
+      graph.insertEdge("n" + i, "n" + ((i + 1) % nodes), seconds(random));
+      for (int d = 0; d < degree; d++) {
+        int succ = random.nextInt(nodes);
+        // insertEdge would only update the weight of a repeated edge
+        if (succ != i && !graph.containsEdge("n" + i, "n" + succ))
+          graph.insertEdge("n" + i, "n" + succ, seconds(random));
+      }
+    }
+  }
+
+  // a walking time in seconds, rounded to tenths like campus.dot
+  private static double seconds(Random random) {
+    return Math.round(300 + random.nextDouble() * 2700) / 10.0;
+  }
+
+}
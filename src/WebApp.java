@@ -6,11 +6,25 @@ import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.OutputStream;
-import java.io.File;
-import java.util.Scanner;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 /**
@@ -26,8 +40,91 @@ import java.util.stream.Stream;
  *     compile WebApp in that location
  *     there is no need to run your sever, the provided index.cgi handles this
  * Then visit through browser via https://cs400-web.cs.wisc.edu/CS_LOGIN/
+ *
+ * Walking times between many locations at once are available as CSV from
+ *     /matrix?from=A|B|C&to=D|E
+ * with the location names separated by | (since some names contain commas),
+ * and at most 200 locations on each side.
+ * Clients that only need the answer (and no page) can ask for JSON from
+ *     /api/route?start=A&end=B
+ *     /api/meeting-point?from=A|B|C
+ *
+ * Request counts, errors, and how long requests and each of their phases
+ * (loading the graph, searching, rendering html) take are available in the
+ * Prometheus text format from
+ *     /metrics
+ *
+ * Requests are answered concurrently, which can be tuned with:
+ *     -Dserver.executor=pool     a fixed pool of -Dserver.threads threads,
+ *                                with up to -Dserver.queue waiting requests,
+ *                                after which requests get 503 (default)
+ *     -Dserver.executor=virtual  a new virtual thread per request (needs
+ *                                Java 21, otherwise pool is used); searches
+ *                                then allocate their working arrays for
+ *                                every request, since each thread keeps its
+ *                                own and no thread is reused
+ *     -Dserver.backlog=N         connections the OS queues before accepting
  */
 public class WebApp {
+  // page that every response is placed in, which is reloaded whenever the
+  // file changes when running with -Dtemplate.watch=true
+  private static final Path TEMPLATE_FILE = Paths.get("template.html");
+  private static final AtomicReference<HtmlTemplate> template = new AtomicReference<>();
+
+  // dot file or graph snapshot (see GraphSnapshot) that the campus graph is
+  // loaded from, which can be changed with -Dgraph.file=...
+  private static final String GRAPH_FILE = System.getProperty("graph.file", "./campus.dot");
+  // the shortest path engine: "compact" for searches (or tables) on a
+  // CompactGraph, or "ch" for a ContractionHierarchy on large maps whose
+  // edges never change between reloads
+  private static final String GRAPH_ENGINE = System.getProperty("graph.engine", "compact");
+
+  // the frontend and the backend behind it, which are replaced together so
+  // that every endpoint always answers from the same graph
+  private static final class Served {
+    final BackendInterface backend;
+    final FrontendInterface frontend;
+
+    Served(BackendInterface backend) {
+      this.backend = backend;
+      this.frontend = new Frontend(backend);
+    }
+  }
+
+  // frontend and backend (along with the graph behind them) that are shared
+  // by all requests: they are built once at startup and treated as
+  // read-only, so a reload builds a complete replacement and then swaps it
+  // in atomically
+  private static final AtomicReference<Served> shared = new AtomicReference<>();
+  // held while reloading, so that overlapping reloads take turns instead of
+  // each building a whole graph at once
+  private static final Object reloadLock = new Object();
+
+  // counters and latency histograms served on /metrics
+  private static final Metrics metrics = new Metrics();
+  // whether each search is observed to count the edges it relaxes, which
+  // slows searches down and is enabled with -Dmetrics.relaxedEdges=true
+  private static final boolean COUNT_RELAXED_EDGES = Boolean.getBoolean("metrics.relaxedEdges");
+  private static final String PHASE_METRIC = "campus_phase_duration_seconds";
+  private static final String PHASE_HELP =
+          "Time spent in each phase of loading and answering requests";
+  private static final LatencyHistogram renderTime =
+          metrics.histogram(PHASE_METRIC, PHASE_HELP, 1e-9, "phase", "render");
+
+  // the most from and to locations that one /matrix request may list, which
+  // bounds the searches and memory that one request can take
+  static final int MAX_MATRIX_LOCATIONS = 200;
+
+  // how requests are run, see the instructions above
+  private static final String EXECUTOR = System.getProperty("server.executor", "pool");
+  private static final int POOL_THREADS = Integer.getInteger("server.threads",
+          Runtime.getRuntime().availableProcessors() * 2);
+  private static final int POOL_QUEUE = Integer.getInteger("server.queue", 1024);
+  private static final int BACKLOG = Integer.getInteger("server.backlog", 128);
+  // true on the thread that answers requests arriving while the pool's
+  // queue is full, see createExecutor
+  private static final ThreadLocal<Boolean> overloaded = ThreadLocal.withInitial(() -> false);
+
   public static void main(String[] args) throws IOException {
     // expects the port number as a command line argument to this program
     // or if a non-numeric argument is passed treat this like the query
@@ -48,15 +145,142 @@ public class WebApp {
       return;
     }
 
+    // load the campus graph and page template once, before accepting any
+    // requests
+    reloadGraph();
+    template.set(HtmlTemplate.load(TEMPLATE_FILE));
+    if(Boolean.getBoolean("template.watch"))
+      HtmlTemplate.watch(TEMPLATE_FILE, template::set);
+
     // configure and start server on this port, responding in this way
     InetSocketAddress address = new InetSocketAddress(portNumber);
-    HttpServer server = HttpServer.create(address,8);
+    HttpServer server = HttpServer.create(address,BACKLOG);
     HttpContext context = server.createContext("/");
-    context.setHandler( WebApp::requestHandler );
+    context.setHandler( measured("/", WebApp::requestHandler) );
+    server.createContext("/reload").setHandler( measured("/reload", WebApp::reloadHandler) );
+    server.createContext("/matrix").setHandler( measured("/matrix", WebApp::matrixHandler) );
+    server.createContext("/api/route")
+            .setHandler( measured("/api/route", WebApp::routeApiHandler) );
+    server.createContext("/api/meeting-point")
+            .setHandler( measured("/api/meeting-point", WebApp::meetingPointApiHandler) );
+    server.createContext("/metrics").setHandler( WebApp::metricsHandler );
+    ExecutorService executor = createExecutor(EXECUTOR, POOL_THREADS, POOL_QUEUE);
+    server.setExecutor(executor);
+    // finish the requests in progress when the server is stopped
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      server.stop(1);
+      executor.shutdown();
+    }));
     System.out.println("Starting Campus Navigator Server...");
     server.start();
   }
 
+  /**
+   * Creates the executor that runs requests: a fixed pool of platform
+   * threads, or one virtual thread per request.  Virtual threads are looked
+   * up by reflection, so this still compiles and runs (with a pool) before
+   * Java 21.  When the pool's queue is full, the request is handed to a
+   * single overflow thread instead, which answers it with 503 (see
+   * measured), so that the server's own thread never runs a request and
+   * keeps accepting connections.  When even the overflow thread is behind
+   * by a full queue, the connection is closed.
+   *
+   * @param kind    "virtual" or "pool"
+   * @param threads the number of threads in the pool
+   * @param queue   the number of requests that may wait for a pool thread
+   * @return the executor to pass to HttpServer.setExecutor
+   * @throws IllegalArgumentException if kind is not virtual or pool
+   */
+  static ExecutorService createExecutor(String kind, int threads, int queue) {
+    if(kind.equalsIgnoreCase("virtual")) {
+      try {
+        return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch(ReflectiveOperationException e) {
+        System.out.println("Virtual threads need Java 21 or later, using a pool of "
+                + threads + " threads instead.");
+      }
+    } else if(!kind.equalsIgnoreCase("pool")) {
+      throw new IllegalArgumentException("server.executor must be virtual or pool, not "
+              + kind);
+    }
+    ThreadPoolExecutor overflow = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queue), task -> {
+              Thread thread = new Thread(() -> {
+                overloaded.set(true);
+                task.run();
+              }, "overflow");
+              thread.setDaemon(true);
+              return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queue), (task, pool) -> overflow.execute(task));
+  }
+
+  /**
+   * Wraps a request handler so that every request it answers is timed in
+   * campus_request_duration_seconds and counted in campus_requests_total by
+   * the class of its status code (2xx, 4xx, ...).  The series are looked up
+   * once here, so each request only records to them.  Requests that arrive
+   * while the server is overloaded are answered with 503 without calling
+   * the handler.
+   *
+   * @param endpoint the name of the endpoint in the metrics' labels
+   * @param handler  the handler that answers the requests
+   * @return the measuring handler
+   */
+  static HttpHandler measured(String endpoint, HttpHandler handler) {
+    LatencyHistogram duration = metrics.histogram("campus_request_duration_seconds",
+            "Time taken to answer each request", 1e-9, "endpoint", endpoint);
+    // counters by the first digit of the status code, where 0 is used for
+    // requests that were never answered
+    LongAdder[] requests = new LongAdder[6];
+    for(int i = 0; i < requests.length; i++)
+      requests[i] = metrics.counter("campus_requests_total", "Requests answered",
+              "endpoint", endpoint, "code", i == 0 ? "none" : i + "xx");
+    return exchange -> {
+      long start = System.nanoTime();
+      try {
+        if(overloaded.get()) {
+          exchange.getResponseHeaders().set("Retry-After","1");
+          exchange.sendResponseHeaders(503,-1);
+          exchange.close();
+        } else {
+          handler.handle(exchange);
+        }
+      } finally {
+        duration.record(System.nanoTime() - start);
+        int code = exchange.getResponseCode() / 100;
+        requests[code >= 1 && code <= 5 ? code : 0].increment();
+      }
+    };
+  }
+
+  // counts an exception that a handler caught, by its type
+  private static void countError(String endpoint, Exception e) {
+    metrics.counter("campus_errors_total", "Exceptions thrown while answering requests",
+            "endpoint", endpoint, "exception", e.getClass().getSimpleName()).increment();
+  }
+
+  // http request handler for the context "/metrics", which answers with every
+  // metric in the Prometheus text format
+  public static void metricsHandler(HttpExchange exchange) {
+    try {
+      exchange.getResponseHeaders().set("Content-Type",
+              "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200,0);
+      try(Writer out = new BufferedWriter(new OutputStreamWriter(
+              exchange.getResponseBody(),StandardCharsets.UTF_8))) {
+        metrics.writePrometheus(out);
+      }
+    } catch (Exception e) {
+      System.out.println("Exception Thrown: "+e.toString());
+      e.printStackTrace();
+      try { exchange.sendResponseHeaders(500,-1); }
+      catch(IOException i){} // do nothing when this fails
+    }
+  }
+
   // http request handler handler for the context "/"
   public static void requestHandler(HttpExchange exchange) {
     try {
@@ -68,38 +292,342 @@ public class WebApp {
               exchange.getRequestURI().getQuery());
       System.out.println("Query includes args: "+keyValuePairs);
 
-      // create backend and frontend objects to respond to this request
-      FrontendInterface frontend = createWorkingFrontend("./campus.dot");
+      // use the shared frontend for this whole request, even if a reload
+      // swaps in a new one while this request is still being answered
+      FrontendInterface frontend = shared.get().frontend;
+      // the time spent searching is measured by the backend, so the render
+      // time is everything else from here until the page is written
+      MeasuredBackend.takeSearchNanos();
+      long start = System.nanoTime();
       // compute answer to user's requested problem based on query args:
-      String response = generateResponseHTML(keyValuePairs,frontend);
+      byte[] response = generateResponseHTML(keyValuePairs,frontend);
       // generate HTML prompts for user for make next requests
-      String prompts = generatePromptHTML(frontend);
-      // compose response and prompts into a complete html template
-      String html = composeHTML(response,prompts);
+      byte[] prompts = generatePromptHTML(frontend);
+
+      // complete exchange response by writing the template with the
+      // response and prompts in place, straight to the requester
+      HtmlTemplate page = template.get();
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+      exchange.sendResponseHeaders(200,page.length(response,prompts));
+      try(OutputStream out = new BufferedOutputStream(exchange.getResponseBody())) {
+        page.write(out,response,prompts);
+      }
+      renderTime.record(System.nanoTime() - start - MeasuredBackend.takeSearchNanos());
 
-      // complete exchange response to send this html back to requester
-      byte[] bytes = html.getBytes();
+      // unless something goes wrong, in which case report problem
+    } catch (Exception e) {
+      countError("/",e);
+      System.out.println("Exception Thrown: "+e.toString());
+      e.printStackTrace();
+      // attempt to send 500 Server Error Response to client
+      try { exchange.sendResponseHeaders(500,-1); }
+      catch(IOException i){} // do nothing when this fails
+    }
+  }
+
+  // http request handler for the context "/reload", which reloads the graph
+  // from its dot file without disturbing requests that are already running
+  public static void reloadHandler(HttpExchange exchange) {
+    try {
+      // only reload on POST, so that crawlers and prefetching cannot trigger it
+      if(!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+        exchange.sendResponseHeaders(405,-1);
+        return;
+      }
+      reloadGraph();
+      System.out.println("Reloaded graph from " + GRAPH_FILE);
+
+      byte[] bytes = "Graph reloaded.\n".getBytes();
       exchange.sendResponseHeaders(200,bytes.length);
       OutputStream out = exchange.getResponseBody();
       out.write(bytes);
       out.close();
 
-      // unless something goes wrong, in which case report problem
+      // when the new graph cannot be loaded, keep serving the old one
     } catch (Exception e) {
+      countError("/reload",e);
+      System.out.println("Exception Thrown: "+e.toString());
+      e.printStackTrace();
+      try { exchange.sendResponseHeaders(500,-1); }
+      catch(IOException i){} // do nothing when this fails
+    }
+  }
+
+  // http request handler for the context "/matrix", which answers with the
+  // walking times from every "from" location to every "to" location as CSV
+  public static void matrixHandler(HttpExchange exchange) {
+    try {
+      Map<String,String> keyValuePairs = parseQuery(
+              exchange.getRequestURI().getQuery());
+      if(!keyValuePairs.containsKey("from") || !keyValuePairs.containsKey("to")) {
+        sendText(exchange,400,"Both from and to locations are required.\n");
+        return;
+      }
+      List<String> sources = splitLocations(keyValuePairs.get("from"));
+      List<String> targets = splitLocations(keyValuePairs.get("to"));
+      if(sources.size() > MAX_MATRIX_LOCATIONS || targets.size() > MAX_MATRIX_LOCATIONS) {
+        sendText(exchange,400,"At most " + MAX_MATRIX_LOCATIONS
+                + " from and " + MAX_MATRIX_LOCATIONS + " to locations are allowed.\n");
+        return;
+      }
+      double[][] times;
+      try {
+        times = shared.get().backend.computeTravelTimeMatrix(sources,targets);
+      } catch(NoSuchElementException e) {
+        sendText(exchange,400,e.getMessage() + "\n");
+        return;
+      }
+
+      // the rows are streamed to the requester as they are written
+      exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+      exchange.sendResponseHeaders(200,0);
+      try(Writer out = new BufferedWriter(new OutputStreamWriter(
+              exchange.getResponseBody(),StandardCharsets.UTF_8))) {
+        writeMatrixCSV(out,sources,targets,times);
+      }
+    } catch (Exception e) {
+      countError("/matrix",e);
+      System.out.println("Exception Thrown: "+e.toString());
+      e.printStackTrace();
+      try { exchange.sendResponseHeaders(500,-1); }
+      catch(IOException i){} // do nothing when this fails
+    }
+  }
+
+  // http request handler for the context "/api/route", which answers with
+  // the shortest route from start to end as JSON
+  public static void routeApiHandler(HttpExchange exchange) {
+    try {
+      Map<String,String> keyValuePairs = parseQuery(
+              exchange.getRequestURI().getQuery());
+      if(!keyValuePairs.containsKey("start") || !keyValuePairs.containsKey("end")) {
+        sendJsonError(exchange,400,"Both start and end locations are required.");
+        return;
+      }
+      BackendInterface backend = shared.get().backend;
+      String unknown = firstUnknownLocation(backend,
+              List.of(keyValuePairs.get("start"),keyValuePairs.get("end")));
+      if(unknown != null) {
+        sendJsonError(exchange,400,"Unknown location: " + unknown);
+        return;
+      }
+      Route<String> route;
+      try {
+        route = backend.findShortestRoute(keyValuePairs.get("start"),
+                keyValuePairs.get("end"));
+      } catch(NoSuchElementException e) {
+        sendJsonError(exchange,404,"No path exists.");
+        return;
+      }
+      try(JsonWriter json = startJson(exchange,200)) {
+        writeRouteJson(json,route);
+      }
+    } catch (Exception e) {
+      countError("/api/route",e);
+      System.out.println("Exception Thrown: "+e.toString());
+      e.printStackTrace();
+      try { exchange.sendResponseHeaders(500,-1); }
+      catch(IOException i){} // do nothing when this fails
+    }
+  }
+
+  // http request handler for the context "/api/meeting-point", which answers
+  // with the destination reached most quickly from all of the "from"
+  // locations (separated by |) as JSON, along with the time from each one
+  public static void meetingPointApiHandler(HttpExchange exchange) {
+    try {
+      Map<String,String> keyValuePairs = parseQuery(
+              exchange.getRequestURI().getQuery());
+      if(!keyValuePairs.containsKey("from")) {
+        sendJsonError(exchange,400,"The from locations are required.");
+        return;
+      }
+      List<String> starts = splitLocations(keyValuePairs.get("from"));
+      if(starts.isEmpty()) {
+        sendJsonError(exchange,400,"The from locations are required.");
+        return;
+      }
+      BackendInterface backend = shared.get().backend;
+      String unknown = firstUnknownLocation(backend,starts);
+      if(unknown != null) {
+        sendJsonError(exchange,400,"Unknown location: " + unknown);
+        return;
+      }
+      String destination;
+      double[][] times;
+      try {
+        destination = backend.getClosestDestinationFromAll(starts);
+        times = backend.computeTravelTimeMatrix(starts,List.of(destination));
+      } catch(NoSuchElementException e) {
+        sendJsonError(exchange,404,e.getMessage());
+        return;
+      }
+      try(JsonWriter json = startJson(exchange,200)) {
+        writeMeetingPointJson(json,starts,destination,times);
+      }
+    } catch (Exception e) {
+      countError("/api/meeting-point",e);
       System.out.println("Exception Thrown: "+e.toString());
       e.printStackTrace();
-      // attempt to send 500 Server Error Response to client
       try { exchange.sendResponseHeaders(500,-1); }
       catch(IOException i){} // do nothing when this fails
     }
   }
 
-  // reads key value pairs from the query string of a URI into a map
+  /**
+   * Writes a route as a JSON object with its locations, the walking time in
+   * seconds of each leg between them, and the total walking time.
+   *
+   * @param json  where to write the object
+   * @param route the route to write
+   * @throws IOException if the JSON cannot be written
+   */
+  static void writeRouteJson(JsonWriter json, Route<String> route) throws IOException {
+    json.beginObject();
+    json.name("locations").stringArray(route.getLocations());
+    json.name("times").numberArray(route.getLegCosts());
+    json.name("totalTime").value(route.getTotalCost());
+    json.endObject();
+  }
+
+  /**
+   * Writes a meeting point as a JSON object with the start locations, the
+   * destination, the walking time in seconds from each start location, and
+   * the total of those times.
+   *
+   * @param json        where to write the object
+   * @param starts      the start locations
+   * @param destination the destination reached most quickly from all starts
+   * @param times       a matrix with the time from each start in its rows
+   * @throws IOException if the JSON cannot be written
+   */
+  static void writeMeetingPointJson(JsonWriter json, List<String> starts, String destination,
+                                    double[][] times) throws IOException {
+    json.beginObject();
+    json.name("from").stringArray(starts);
+    json.name("destination").value(destination);
+    json.name("times").beginArray();
+    double total = 0;
+    for(double[] row : times) {
+      json.value(row[0]);
+      total += row[0];
+    }
+    json.endArray();
+    json.name("totalTime").value(total);
+    json.endObject();
+  }
+
+  // sends the response headers for a JSON body of unknown length, and
+  // returns a writer that streams the body
+  private static JsonWriter startJson(HttpExchange exchange, int status) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status,0);
+    return new JsonWriter(exchange.getResponseBody());
+  }
+
+  // sends a JSON object with an error message
+  private static void sendJsonError(HttpExchange exchange, int status, String message)
+          throws IOException {
+    try(JsonWriter json = startJson(exchange,status)) {
+      json.beginObject().name("error").value(message).endObject();
+    }
+  }
+
+  // returns the first of locations that the backend does not have, or null
+  // when it has all of them; the JSON API reports those with 400, and paths
+  // that do not exist between known locations with 404
+  private static String firstUnknownLocation(BackendInterface backend,
+                                             List<String> locations) {
+    for(String location : locations)
+      if(!backend.containsLocation(location))
+        return location;
+    return null;
+  }
+
+  // splits a list of location names separated by |
+  private static List<String> splitLocations(String locations) {
+    List<String> list = new ArrayList<>();
+    for(String location : locations.split("\\|"))
+      if(!location.isBlank())
+        list.add(location.trim());
+    return list;
+  }
+
+  /**
+   * Writes a matrix of walking times as CSV: a header row with "from" and
+   * the target names, then one row per source starting with its name.  Times are in
+   * seconds, and the cell is left empty when there is no path.
+   *
+   * @param csv     where to write the CSV text
+   * @param sources the names of the rows
+   * @param targets the names of the columns
+   * @param times   the walking time from each source to each target
+   * @throws IOException if csv cannot be written to
+   */
+  static void writeMatrixCSV(Writer csv, List<String> sources, List<String> targets,
+                             double[][] times) throws IOException {
+    csv.write("from");
+    for(String target : targets) {
+      csv.write(',');
+      writeCSVField(csv,target);
+    }
+    csv.write("\r\n");
+    for(int i = 0; i < sources.size(); i++) {
+      writeCSVField(csv,sources.get(i));
+      for(double time : times[i]) {
+        csv.write(',');
+        if(time < Double.POSITIVE_INFINITY)
+          csv.write(Double.toString(time));
+      }
+      csv.write("\r\n");
+    }
+  }
+
+  // quotes a field that contains a comma, quote or line break
+  private static void writeCSVField(Writer csv, String field) throws IOException {
+    if(field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+            && field.indexOf('\r') < 0) {
+      csv.write(field);
+      return;
+    }
+    csv.write('"' + field.replace("\"","\"\"") + '"');
+  }
+
+  // sends a short plain text response
+  private static void sendText(HttpExchange exchange, int status, String text)
+          throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(status,bytes.length);
+    try(OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Builds a new frontend, backend and graph from the dot file, and then
+   * atomically replaces the ones shared by all requests.  Requests that are
+   * in progress keep using the frontend and backend they started with.
+   * Reloads run one at a time, so the last one to finish always loaded the
+   * file last.
+   *
+   * @throws IOException if the dot file cannot be read
+   */
+  public static void reloadGraph() throws IOException {
+    synchronized(reloadLock) {
+      // searches are measured for every request, including the frontend's
+      shared.set(new Served(new MeasuredBackend(createWorkingBackend(GRAPH_FILE),metrics,
+              COUNT_RELAXED_EDGES)));
+    }
+  }
+
+  // reads key value pairs from the query string of a URI into a map, where
+  // a key with nothing after its = has an empty value
   private static Map<String,String> parseQuery(String query) {
     HashMap<String,String> map = new HashMap<>();
     if(query != null && query.contains("="))
       Stream.of(query.split("&")).forEach(arg -> {
-        String[] pair = arg.split("=");
+        String[] pair = arg.split("=",-1);
         if(pair.length != 2)
           throw new IllegalArgumentException("Unable to split "+
                   "arg: " + arg+" into a key value pair around a "+
@@ -111,55 +639,57 @@ public class WebApp {
 
   // creates a working Frontend, Backend, DijkstraGraph, and HashtableMap
   private static FrontendInterface createWorkingFrontend(String filename) throws IOException {
-    GraphADT<String,Double> graph = new DijkstraGraph<>();
-    BackendInterface backend = new Backend((DijkstraGraph<String, Double>) graph);
-    backend.loadGraph
-  Data(filename);
-    FrontendInterface frontend = new Frontend(backend);
-    return frontend;
+    return new Frontend(createWorkingBackend(filename));
+  }
+
+  // creates a working Backend over the graph engine chosen for the server
+  private static Backend createWorkingBackend(String filename) throws IOException {
+    // the graph is never modified, so a CompactGraph is used unless another
+    // engine is chosen; that also lets a snapshot file be used as is
+    GraphADT<String,Double> graph = GRAPH_ENGINE.equals("ch")
+            ? new ContractionHierarchy<String,Double>()
+            : CompactGraph.of(new DijkstraGraph<String,Double>());
+    Backend backend = new Backend(graph);
+    // the campus is small enough to precompute every shortest path
+    backend.setAllPairsMemoryBudget(AllPairsIndex.DEFAULT_MEMORY_BUDGET);
+    // larger maps fall back to caching the trees of popular start locations
+    backend.setTreeCacheMemoryBudget(ShortestPathTreeCache.DEFAULT_MEMORY_BUDGET);
+    long start = System.nanoTime();
+    backend.loadGraphData(filename);
+    metrics.histogram(PHASE_METRIC, PHASE_HELP, 1e-9, "phase", "load")
+            .record(System.nanoTime() - start);
+    return backend;
   }
 
   // creates the html response for the kind of question requeted (if any)
-  private static String generateResponseHTML(Map<String,String> keyValuePairs, FrontendInterface frontend) {
+  private static byte[] generateResponseHTML(Map<String,String> keyValuePairs, FrontendInterface frontend) {
+    StringBuilder response = new StringBuilder(1024);
+    response.append("<div id=\"response\">");
     // compute response for shortest path request
-    String response = "<div id=\"response\">";
     if(keyValuePairs.containsKey("start") &&
             keyValuePairs.containsKey("end")) {
-      response += frontend.generateShortestPathResponseHTML(
+      frontend.appendShortestPathResponseHTML(response,
               keyValuePairs.get("start"),
-              keyValuePairs.get("end")) + "</div>";
+              keyValuePairs.get("end"));
       // compute response for other request
     } else if(keyValuePairs.containsKey("from")) {
-      response+=frontend.generateClosestDestinationsFromAllResponseHTML(
-              keyValuePairs.get("from")) + "</div>";
-      // otherwise, leave response div blank
-    } else
-      response += "</div>";
-
-    return response;
+      frontend.appendClosestDestinationsFromAllResponseHTML(response,
+              keyValuePairs.get("from"));
+    }
+    // otherwise, leave response div blank
+    response.append("</div>");
+    return response.toString().getBytes(StandardCharsets.UTF_8);
   }
 
   // generate separate div sections with a prompt for each kind of request
-  private static String generatePromptHTML(FrontendInterface frontend) {
-    String firstPrompt = "<div id=\"firstPrompt\">" +
-            frontend.generateShortestPathPromptHTML() + "</div>";
-    String secondPrompt = "<div id=\"secondPrompt\">" +
-            frontend.generateClosestDestinationsFromAllPromptHTML() + "</div>";
-    return firstPrompt + secondPrompt;
-  }
-
-  // compose reponse with prompts inside a complete html tree
-  private static String composeHTML(String response, String prompts) throws IOException {
-    // read contents of template file into html string
-    String html = "";
-    Scanner in = new Scanner(new File("template.html"));
-    while(in.hasNextLine()) html += in.nextLine() + "\n";
-
-    // replace placeholders for response and prompts
-    html = html.replaceFirst("<!-- RESPONSE GOES HERE -->",response);
-    html = html.replaceFirst("<!-- PROMPTS GO HERE -->",prompts);
-
-    return html;
+  private static byte[] generatePromptHTML(FrontendInterface frontend) {
+    StringBuilder prompts = new StringBuilder(512);
+    prompts.append("<div id=\"firstPrompt\">");
+    frontend.appendShortestPathPromptHTML(prompts);
+    prompts.append("</div><div id=\"secondPrompt\">");
+    frontend.appendClosestDestinationsFromAllPromptHTML(prompts);
+    prompts.append("</div>");
+    return prompts.toString().getBytes(StandardCharsets.UTF_8);
   }
 
   // Since we cannot run a public webserver on the department's linux
@@ -171,15 +701,14 @@ public class WebApp {
       Map<String,String> keyValuePairs = parseQuery(query);
 
       // create backend and frontend objects to respond to this request
-      FrontendInterface frontend = createWorkingFrontend("./campus.dot");
+      FrontendInterface frontend = createWorkingFrontend(GRAPH_FILE);
       // compute answer to user's requested problem based on query args:
-      String response = generateResponseHTML(keyValuePairs,frontend);
+      byte[] response = generateResponseHTML(keyValuePairs,frontend);
       // generate HTML prompts for user for make next requests
-      String prompts = generatePromptHTML(frontend);
-      // compose response and prompts into a complete html template
-      String html = composeHTML(response,prompts);
-
-      System.out.println(html);
+      byte[] prompts = generatePromptHTML(frontend);
+      // write response and prompts inside the template to standard out
+      HtmlTemplate.load(TEMPLATE_FILE).write(System.out,response,prompts);
+      System.out.println();
 
       // unless something goes wrong, in which case report problem
     } catch (Exception e) {